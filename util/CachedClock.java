@@ -0,0 +1,158 @@
+package com.chen.my_project.util;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 缓存的粗粒度时钟
+ *
+ * <pre>
+ * 按指定精度缓存当前时间及其 yyyy-MM-dd HH:mm:ss 格式的字符串，同一精度区间内的调用共享同一个预先格式化好的结果，
+ * 适合日志、审计记录等高频获取当前时间字符串的场景。
+ *
+ * 两种刷新方式：
+ *      懒刷新：每次调用比较System.currentTimeMillis()，跨过区间时由调用线程重新格式化；
+ *      后台刷新：由守护线程在每个区间开始时刷新，调用方只读取volatile字段，结果最多滞后一个精度区间。
+ * 精度大于1秒时，字符串显示的是区间开始的时间。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class CachedClock implements AutoCloseable {
+
+    /** 默认精度（毫秒） */
+    public static final long DEFAULT_RESOLUTION_MILLIS = 1000;
+
+    /** 精度（毫秒） */
+    private final long resolutionMillis;
+
+    private final ScheduledExecutorService ticker;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * @param resolutionMillis 精度（毫秒）
+     * @param background 是否使用后台线程刷新
+     * @author ChenDuochuang
+     */
+    public CachedClock(long resolutionMillis, boolean background) {
+        if (resolutionMillis <= 0) {
+            throw new IllegalArgumentException("Illegal resolution: " + resolutionMillis);
+        }
+        this.resolutionMillis = resolutionMillis;
+        this.snapshot = createSnapshot(System.currentTimeMillis());
+        if (background) {
+            this.ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "cached-clock-ticker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // 对齐到区间边界开始刷新
+            long delay = snapshot.end - System.currentTimeMillis();
+            ticker.scheduleAtFixedRate(() -> snapshot = createSnapshot(System.currentTimeMillis()),
+                    Math.max(0, delay), resolutionMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    private static class ClockHolder {
+        private static final CachedClock INSTANCE = new CachedClock(DEFAULT_RESOLUTION_MILLIS, false);
+    }
+
+    /**
+     * 获取默认时钟：精度1秒，懒刷新
+     * @return
+     * @author ChenDuochuang
+     */
+    public static CachedClock getDefault() {
+        return ClockHolder.INSTANCE;
+    }
+
+    /**
+     * 当前时间（毫秒），为所在精度区间的开始时间
+     * @return
+     * @author ChenDuochuang
+     */
+    public long currentTimeMillis() {
+        return current().start;
+    }
+
+    /**
+     * 当前时间，格式：yyyy-MM-dd HH:mm:ss
+     * @return 共享的字符串
+     * @author ChenDuochuang
+     */
+    public String currentTime() {
+        return current().text;
+    }
+
+    /**
+     * 将当前时间追加到sb，格式：yyyy-MM-dd HH:mm:ss，不创建任何对象
+     * @param sb
+     * @author ChenDuochuang
+     */
+    public void appendCurrentTime(StringBuilder sb) {
+        sb.append(current().chars);
+    }
+
+    /**
+     * 精度（毫秒）
+     * @return
+     */
+    public long getResolutionMillis() {
+        return resolutionMillis;
+    }
+
+    /**
+     * 停止后台刷新，之后改为懒刷新
+     */
+    @Override
+    public void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot s = snapshot;
+        if (ticker != null && !ticker.isShutdown()) {
+            return s;
+        }
+        long now = System.currentTimeMillis();
+        if (now >= s.start && now < s.end) {
+            return s;
+        }
+        s = createSnapshot(now);
+        snapshot = s;
+        return s;
+    }
+
+    private Snapshot createSnapshot(long now) {
+        long start = now - Math.floorMod(now, resolutionMillis);
+        return new Snapshot(start, start + resolutionMillis, DateTimeCodec.formatDateTime(start));
+    }
+
+    /**
+     * 某个精度区间的时间，不可变
+     */
+    private static final class Snapshot {
+
+        /** 区间[start, end)，毫秒级时间戳 */
+        private final long start;
+        private final long end;
+
+        private final String text;
+
+        private final char[] chars;
+
+        private Snapshot(long start, long end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+            this.chars = text.toCharArray();
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.chen.my_project.excel;
+
+import java.util.Objects;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 单元格样式的描述，不可变，可作为Map的key
+ *
+ * <pre>
+ * 与具体Workbook无关，通过StyleRegistry转换为Workbook中的CellStyle，相同的描述在同一个Workbook中只创建一次。
+ * 包含CellStyle的全部属性（边框及颜色、对齐、旋转、缩进、填充、保护、数据格式和字体），
+ * 因此描述相同的样式在Excel中的显示完全相同，StyleRegistry可以放心复用。
+ * 颜色只支持索引色；字体名为null时使用Workbook的默认字体。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class CellStyleSpec {
+
+    /** Workbook的默认样式 */
+    public static final CellStyleSpec DEFAULT = new CellStyleSpec();
+
+    /** Excel标准内容格式：细边框、垂直居中 */
+    public static final CellStyleSpec BORDERED = DEFAULT.withBorder(BorderStyle.THIN)
+            .withVerticalAlignment(VerticalAlignment.CENTER);
+
+    private BorderStyle borderTop = BorderStyle.NONE;
+
+    private BorderStyle borderBottom = BorderStyle.NONE;
+
+    private BorderStyle borderLeft = BorderStyle.NONE;
+
+    private BorderStyle borderRight = BorderStyle.NONE;
+
+    private short topBorderColor = IndexedColors.BLACK.getIndex();
+
+    private short bottomBorderColor = IndexedColors.BLACK.getIndex();
+
+    private short leftBorderColor = IndexedColors.BLACK.getIndex();
+
+    private short rightBorderColor = IndexedColors.BLACK.getIndex();
+
+    private HorizontalAlignment alignment = HorizontalAlignment.GENERAL;
+
+    private VerticalAlignment verticalAlignment = VerticalAlignment.BOTTOM;
+
+    private boolean wrapText;
+
+    /** 文字旋转角度 */
+    private short rotation;
+
+    /** 缩进 */
+    private short indention;
+
+    /** 保护工作表时是否锁定 */
+    private boolean locked = true;
+
+    /** 保护工作表时是否隐藏公式 */
+    private boolean hidden;
+
+    /** 数据格式，如 General、0.00、yyyy-MM-dd */
+    private String dataFormat = "General";
+
+    private FillPatternType fillPattern = FillPatternType.NO_FILL;
+
+    private short fillForegroundColor = IndexedColors.AUTOMATIC.getIndex();
+
+    private short fillBackgroundColor = IndexedColors.AUTOMATIC.getIndex();
+
+    /** 字体名，为null时使用默认字体，忽略其他字体属性 */
+    private String fontName;
+
+    /** 字体高度，单位为1/20磅 */
+    private short fontHeight;
+
+    private boolean bold;
+
+    private boolean italic;
+
+    private short fontColor = Font.COLOR_NORMAL;
+
+    private byte underline = Font.U_NONE;
+
+    private boolean strikeout;
+
+    /** 上标、下标 */
+    private short typeOffset = Font.SS_NONE;
+
+    private CellStyleSpec() {
+    }
+
+    /**
+     * 读取已有样式
+     * @param style
+     * @param workbook 样式所在的Workbook，用于读取字体
+     * @return
+     * @author ChenDuochuang
+     */
+    public static CellStyleSpec of(CellStyle style, Workbook workbook) {
+        CellStyleSpec spec = new CellStyleSpec();
+        spec.borderTop = style.getBorderTopEnum();
+        spec.borderBottom = style.getBorderBottomEnum();
+        spec.borderLeft = style.getBorderLeftEnum();
+        spec.borderRight = style.getBorderRightEnum();
+        spec.topBorderColor = style.getTopBorderColor();
+        spec.bottomBorderColor = style.getBottomBorderColor();
+        spec.leftBorderColor = style.getLeftBorderColor();
+        spec.rightBorderColor = style.getRightBorderColor();
+        spec.normalizeBorderColors();
+        spec.alignment = style.getAlignmentEnum();
+        spec.verticalAlignment = style.getVerticalAlignmentEnum();
+        spec.wrapText = style.getWrapText();
+        spec.rotation = style.getRotation();
+        spec.indention = style.getIndention();
+        spec.locked = style.getLocked();
+        spec.hidden = style.getHidden();
+        spec.dataFormat = style.getDataFormatString();
+        spec.fillPattern = style.getFillPatternEnum();
+        spec.fillForegroundColor = style.getFillForegroundColor();
+        spec.fillBackgroundColor = style.getFillBackgroundColor();
+        if (style.getFontIndex() != 0) {
+            Font font = workbook.getFontAt(style.getFontIndex());
+            spec.fontName = font.getFontName();
+            spec.fontHeight = font.getFontHeight();
+            spec.bold = font.getBold();
+            spec.italic = font.getItalic();
+            spec.fontColor = font.getColor();
+            if (spec.fontColor == IndexedColors.BLACK.getIndex() && !(workbook instanceof HSSFWorkbook)) {
+                // .xlsx把默认颜色COLOR_NORMAL保存为黑色，读取时还原，否则与创建时的描述不相等
+                spec.fontColor = Font.COLOR_NORMAL;
+            }
+            spec.underline = font.getUnderline();
+            spec.strikeout = font.getStrikeout();
+            spec.typeOffset = font.getTypeOffset();
+        }
+        return spec;
+    }
+
+    /**
+     * 四边使用相同的边框
+     * @param border
+     * @return
+     */
+    public CellStyleSpec withBorder(BorderStyle border) {
+        CellStyleSpec spec = copy();
+        spec.borderTop = border;
+        spec.borderBottom = border;
+        spec.borderLeft = border;
+        spec.borderRight = border;
+        spec.normalizeBorderColors();
+        return spec;
+    }
+
+    public CellStyleSpec withAlignment(HorizontalAlignment alignment) {
+        CellStyleSpec spec = copy();
+        spec.alignment = alignment;
+        return spec;
+    }
+
+    public CellStyleSpec withVerticalAlignment(VerticalAlignment verticalAlignment) {
+        CellStyleSpec spec = copy();
+        spec.verticalAlignment = verticalAlignment;
+        return spec;
+    }
+
+    public CellStyleSpec withWrapText(boolean wrapText) {
+        CellStyleSpec spec = copy();
+        spec.wrapText = wrapText;
+        return spec;
+    }
+
+    /**
+     * @param dataFormat 数据格式，如 0.00、yyyy-MM-dd
+     * @return
+     */
+    public CellStyleSpec withDataFormat(String dataFormat) {
+        CellStyleSpec spec = copy();
+        spec.dataFormat = Objects.requireNonNull(dataFormat, "dataFormat");
+        return spec;
+    }
+
+    /**
+     * 纯色填充
+     * @param color 索引色
+     * @return
+     */
+    public CellStyleSpec withFillColor(IndexedColors color) {
+        CellStyleSpec spec = copy();
+        spec.fillPattern = FillPatternType.SOLID_FOREGROUND;
+        spec.fillForegroundColor = color.getIndex();
+        return spec;
+    }
+
+    /**
+     * @param fontName 字体名
+     * @param heightInPoints 字号，单位为磅
+     * @param bold 是否加粗
+     * @return
+     */
+    public CellStyleSpec withFont(String fontName, int heightInPoints, boolean bold) {
+        CellStyleSpec spec = copy();
+        spec.fontName = Objects.requireNonNull(fontName, "fontName");
+        spec.fontHeight = (short) (heightInPoints * 20);
+        spec.bold = bold;
+        return spec;
+    }
+
+    /**
+     * 按描述设置样式，font为null时不修改字体
+     */
+    void applyTo(CellStyle style, Font font) {
+        style.setBorderTop(borderTop);
+        style.setBorderBottom(borderBottom);
+        style.setBorderLeft(borderLeft);
+        style.setBorderRight(borderRight);
+        style.setTopBorderColor(topBorderColor);
+        style.setBottomBorderColor(bottomBorderColor);
+        style.setLeftBorderColor(leftBorderColor);
+        style.setRightBorderColor(rightBorderColor);
+        style.setAlignment(alignment);
+        style.setVerticalAlignment(verticalAlignment);
+        style.setWrapText(wrapText);
+        style.setRotation(rotation);
+        style.setIndention(indention);
+        style.setLocked(locked);
+        style.setHidden(hidden);
+        style.setFillPattern(fillPattern);
+        style.setFillForegroundColor(fillForegroundColor);
+        style.setFillBackgroundColor(fillBackgroundColor);
+        if (font != null) {
+            style.setFont(font);
+        }
+    }
+
+    /**
+     * 在Workbook中查找或创建描述的字体，使用默认字体时返回null
+     */
+    Font findOrCreateFont(Workbook workbook) {
+        if (fontName == null) {
+            return null;
+        }
+        short color = fontColor == Font.COLOR_NORMAL && !(workbook instanceof HSSFWorkbook)
+                ? IndexedColors.BLACK.getIndex() : fontColor;
+        Font font = workbook.findFont(bold, color, fontHeight, fontName, italic, strikeout, typeOffset, underline);
+        if (font == null) {
+            font = workbook.createFont();
+            font.setFontName(fontName);
+            font.setFontHeight(fontHeight);
+            font.setBold(bold);
+            font.setItalic(italic);
+            font.setColor(fontColor);
+            font.setUnderline(underline);
+            font.setStrikeout(strikeout);
+            font.setTypeOffset(typeOffset);
+        }
+        return font;
+    }
+
+    String getDataFormat() {
+        return dataFormat;
+    }
+
+    /**
+     * 没有边框的一边颜色不显示，统一为默认颜色，否则默认样式（.xls的边框颜色为0）与DEFAULT不相等
+     */
+    private void normalizeBorderColors() {
+        if (borderTop == BorderStyle.NONE) {
+            topBorderColor = IndexedColors.BLACK.getIndex();
+        }
+        if (borderBottom == BorderStyle.NONE) {
+            bottomBorderColor = IndexedColors.BLACK.getIndex();
+        }
+        if (borderLeft == BorderStyle.NONE) {
+            leftBorderColor = IndexedColors.BLACK.getIndex();
+        }
+        if (borderRight == BorderStyle.NONE) {
+            rightBorderColor = IndexedColors.BLACK.getIndex();
+        }
+    }
+
+    private CellStyleSpec copy() {
+        CellStyleSpec spec = new CellStyleSpec();
+        spec.borderTop = borderTop;
+        spec.borderBottom = borderBottom;
+        spec.borderLeft = borderLeft;
+        spec.borderRight = borderRight;
+        spec.topBorderColor = topBorderColor;
+        spec.bottomBorderColor = bottomBorderColor;
+        spec.leftBorderColor = leftBorderColor;
+        spec.rightBorderColor = rightBorderColor;
+        spec.alignment = alignment;
+        spec.verticalAlignment = verticalAlignment;
+        spec.wrapText = wrapText;
+        spec.rotation = rotation;
+        spec.indention = indention;
+        spec.locked = locked;
+        spec.hidden = hidden;
+        spec.dataFormat = dataFormat;
+        spec.fillPattern = fillPattern;
+        spec.fillForegroundColor = fillForegroundColor;
+        spec.fillBackgroundColor = fillBackgroundColor;
+        spec.fontName = fontName;
+        spec.fontHeight = fontHeight;
+        spec.bold = bold;
+        spec.italic = italic;
+        spec.fontColor = fontColor;
+        spec.underline = underline;
+        spec.strikeout = strikeout;
+        spec.typeOffset = typeOffset;
+        return spec;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof CellStyleSpec)) {
+            return false;
+        }
+        CellStyleSpec other = (CellStyleSpec) obj;
+        return borderTop == other.borderTop && borderBottom == other.borderBottom && borderLeft == other.borderLeft
+                && borderRight == other.borderRight && topBorderColor == other.topBorderColor
+                && bottomBorderColor == other.bottomBorderColor && leftBorderColor == other.leftBorderColor
+                && rightBorderColor == other.rightBorderColor && alignment == other.alignment
+                && verticalAlignment == other.verticalAlignment && wrapText == other.wrapText
+                && rotation == other.rotation && indention == other.indention && locked == other.locked
+                && hidden == other.hidden && dataFormat.equals(other.dataFormat) && fillPattern == other.fillPattern
+                && fillForegroundColor == other.fillForegroundColor && fillBackgroundColor == other.fillBackgroundColor
+                && Objects.equals(fontName, other.fontName) && fontHeight == other.fontHeight && bold == other.bold
+                && italic == other.italic && fontColor == other.fontColor && underline == other.underline
+                && strikeout == other.strikeout && typeOffset == other.typeOffset;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(borderTop, borderBottom, borderLeft, borderRight, topBorderColor, bottomBorderColor,
+                leftBorderColor, rightBorderColor, alignment, verticalAlignment, wrapText, rotation, indention, locked,
+                hidden, dataFormat, fillPattern, fillForegroundColor, fillBackgroundColor, fontName, fontHeight, bold,
+                italic, fontColor, underline, strikeout, typeOffset);
+    }
+
+    @Override
+    public String toString() {
+        return "CellStyleSpec [border=" + borderTop + "/" + borderBottom + "/" + borderLeft + "/" + borderRight
+                + ", borderColor=" + topBorderColor + "/" + bottomBorderColor + "/" + leftBorderColor + "/"
+                + rightBorderColor + ", alignment=" + alignment + "/" + verticalAlignment + ", wrapText=" + wrapText
+                + ", rotation=" + rotation + ", indention=" + indention + ", locked=" + locked + ", hidden=" + hidden
+                + ", dataFormat=" + dataFormat + ", fill=" + fillPattern + "/" + fillForegroundColor + "/"
+                + fillBackgroundColor + ", font=" + fontName + "/" + fontHeight + "/" + bold + "/" + italic + "/"
+                + fontColor + "/" + underline + "/" + strikeout + "/" + typeOffset + "]";
+    }
+}
@@ -0,0 +1,378 @@
+package com.mx.server.tsp.cockpit.plan.common;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.stream.LongStream;
+
+/**
+ * 农历节日与节气查询服务，支持1900-2099年期间
+ *
+ * <pre>
+ * 首次使用时基于LunarCalendarUtil的农历数据，预先计算每个节日、节气在支持范围内的所有公历日期（按升序保存为long[]），
+ * 区间查询通过二分查找定位起点后顺序输出，耗时与结果数量成正比，不需要逐日转换农历。
+ * 日期均以距1970-01-01的天数（epochDay）表示，节气日期为北京时间，取自按太阳视黄经计算的节气表。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ChineseCalendarService {
+
+    /**
+     * 节气
+     */
+    public enum SolarTerm {
+        XIAO_HAN("小寒"), DA_HAN("大寒"), LI_CHUN("立春"), YU_SHUI("雨水"), JING_ZHE("惊蛰"), CHUN_FEN("春分"),
+        QING_MING("清明"), GU_YU("谷雨"), LI_XIA("立夏"), XIAO_MAN("小满"), MANG_ZHONG("芒种"), XIA_ZHI("夏至"),
+        XIAO_SHU("小暑"), DA_SHU("大暑"), LI_QIU("立秋"), CHU_SHU("处暑"), BAI_LU("白露"), QIU_FEN("秋分"),
+        HAN_LU("寒露"), SHUANG_JIANG("霜降"), LI_DONG("立冬"), XIAO_XUE("小雪"), DA_XUE("大雪"), DONG_ZHI("冬至");
+
+        private final String displayName;
+
+        SolarTerm(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 节日
+     */
+    public enum Festival {
+        /** 春节，正月初一 */
+        SPRING_FESTIVAL("春节", 1, 1),
+        /** 元宵节，正月十五 */
+        LANTERN_FESTIVAL("元宵节", 1, 15),
+        /** 清明节，按节气 */
+        QING_MING("清明节", 0, 0),
+        /** 端午节，五月初五 */
+        DRAGON_BOAT_FESTIVAL("端午节", 5, 5),
+        /** 七夕，七月初七 */
+        QIXI("七夕", 7, 7),
+        /** 中元节，七月十五 */
+        GHOST_FESTIVAL("中元节", 7, 15),
+        /** 中秋节，八月十五 */
+        MID_AUTUMN_FESTIVAL("中秋节", 8, 15),
+        /** 重阳节，九月初九 */
+        DOUBLE_NINTH_FESTIVAL("重阳节", 9, 9),
+        /** 腊八节，腊月初八 */
+        LABA_FESTIVAL("腊八节", 12, 8),
+        /** 除夕，腊月的最后一天 */
+        NEW_YEARS_EVE("除夕", 12, 0);
+
+        private final String displayName;
+
+        /** 农历月日，清明为0，除夕的日为0表示腊月最后一天 */
+        private final int lunarMonth;
+        private final int lunarDay;
+
+        Festival(String displayName, int lunarMonth, int lunarDay) {
+            this.displayName = displayName;
+            this.lunarMonth = lunarMonth;
+            this.lunarDay = lunarDay;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 节日回调
+     */
+    public interface FestivalConsumer {
+
+        /**
+         * @param epochDay 公历日期距1970-01-01的天数
+         * @param festival 节日
+         */
+        void accept(long epochDay, Festival festival);
+    }
+
+    /**
+     * 用来表示1900年到2099年间各节气的日期（北京时间），每年一个值，每个节气2位，由低到高依次为小寒到冬至。
+     * 由太阳视黄经（VSOP87地球黄经级数，含章动、光行差和ΔT修正）计算各节气时刻，按UTC+8取日期，
+     * 每个节气的日为SOLAR_TERM_BASE_DAYS中的日加上对应2位的值
+     */
+    private static final long[] SOLAR_TERM_INFO = {
+    /* 1900 */
+    0x5AA665A65A56L,
+    /* 1901-1910 */
+    0x6AAAA6AA9A5AL, 0xAAAAAABAAA6AL, 0xAAABBABBAFAAL, 0x5AA665A65AABL, 0x6AAAA6AA9A5AL,
+    0xAAAAAAAAAA6AL, 0xAAABBABBAFAAL, 0x5AA665A65AABL, 0x6AAAA6AA9A5AL, 0xAAAAAAAAAA6AL,
+    /* 1911-1920 */
+    0xAAABBABBAFAAL, 0x56A665A65AABL, 0x6AA6A6AA9A56L, 0xAAAAAAAA9A5AL, 0xAAABAABAAEAAL,
+    0x569665A65AAAL, 0x6AA6A6A69A56L, 0x6AAAAAAA9A5AL, 0xAAABAABAAEAAL, 0x569665A65AAAL,
+    /* 1921-1930 */
+    0x5AA6A6A65A56L, 0x6AAAAAAA9A5AL, 0xAAABAABAAA6AL, 0x569665A65AAAL, 0x5AA6A6A65A56L,
+    0x6AAAA6AA9A5AL, 0xAAABAABAAA6AL, 0x555665A65AAAL, 0x5AA665A65A56L, 0x6AAAA6AA9A5AL,
+    /* 1931-1940 */
+    0xAAAAAABAAA6AL, 0x555665665AAAL, 0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0xAAAAAAAAAA6AL,
+    0x555665665AAAL, 0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0xAAAAAAAAAA6AL, 0x555665665AAAL,
+    /* 1941-1950 */
+    0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0xAAAAAAAAAA6AL, 0x555665655AAAL, 0x569665A65A56L,
+    0x6AA6A6AA9A56L, 0xAAAAAAAA9A5AL, 0x5556556559AAL, 0x569665A65A55L, 0x6AA6A6A65A56L,
+    /* 1951-1960 */
+    0xAAAAAAAA9A5AL, 0x5556556559AAL, 0x569665A65A55L, 0x5AA6A6A65A56L, 0x6AAAA6AA9A5AL,
+    0x5556556555AAL, 0x569665A65A55L, 0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0x55555565556AL,
+    /* 1961-1970 */
+    0x555665665A55L, 0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0x55555565556AL, 0x555665665A55L,
+    0x5AA665A65A56L, 0x6AAAA6AA9A5AL, 0x55555555556AL, 0x555665665A55L, 0x5AA665A65A56L,
+    /* 1971-1980 */
+    0x6AAAA6AA9A5AL, 0x55555555556AL, 0x555665655A55L, 0x5AA665A65A56L, 0x6AA6A6AA9A5AL,
+    0x55555555456AL, 0x555655655A55L, 0x5A9665A65A56L, 0x6AA6A6A69A5AL, 0x55555555456AL,
+    /* 1981-1990 */
+    0x555655655A55L, 0x569665A65A56L, 0x6AA6A6A65A56L, 0x55555155455AL, 0x555655655955L,
+    0x569665A65A55L, 0x5AA6A5A65A56L, 0x15555155455AL, 0x555555655555L, 0x569665665A55L,
+    /* 1991-2000 */
+    0x5AA665A65A56L, 0x15555155455AL, 0x555555655515L, 0x555665665A55L, 0x5AA665A65A56L,
+    0x15555155455AL, 0x555555555515L, 0x555665665A55L, 0x5AA665A65A56L, 0x15555155455AL,
+    /* 2001-2010 */
+    0x555555555515L, 0x555665665A55L, 0x5AA665A65A56L, 0x15555155455AL, 0x555555555515L,
+    0x555655655A55L, 0x5AA665A65A56L, 0x15515155455AL, 0x555555554515L, 0x555655655A55L,
+    /* 2011-2020 */
+    0x5A9665A65A56L, 0x15515151455AL, 0x555551554515L, 0x555655655A55L, 0x569665A65A56L,
+    0x155151510556L, 0x555551554505L, 0x555655655955L, 0x569665665A55L, 0x155110510556L,
+    /* 2021-2030 */
+    0x155551554505L, 0x555555655555L, 0x569665665A55L, 0x055110510556L, 0x155551554505L,
+    0x555555555515L, 0x555665665A55L, 0x055110510556L, 0x155551554505L, 0x555555555515L,
+    /* 2031-2040 */
+    0x555665665A55L, 0x055110510556L, 0x155551554505L, 0x555555555515L, 0x555655655A55L,
+    0x055110510556L, 0x155551554505L, 0x555555555515L, 0x555655655A55L, 0x055110510556L,
+    /* 2041-2050 */
+    0x155151514505L, 0x555555554515L, 0x555655655A55L, 0x054110510556L, 0x155151510505L,
+    0x555551554515L, 0x555655655A55L, 0x014110110556L, 0x155110510501L, 0x555551554505L,
+    /* 2051-2060 */
+    0x555555655555L, 0x014110110555L, 0x155110510501L, 0x555551554505L, 0x555555555555L,
+    0x014110110555L, 0x055110510501L, 0x155551554505L, 0x555555555555L, 0x000110110555L,
+    /* 2061-2070 */
+    0x055110510501L, 0x155551554505L, 0x555555555515L, 0x000110110555L, 0x055110510501L,
+    0x155551554505L, 0x555555555515L, 0x000100100555L, 0x055110510501L, 0x155151514505L,
+    /* 2071-2080 */
+    0x555555555515L, 0x000100100555L, 0x054110510501L, 0x155151514505L, 0x555551554515L,
+    0x000100100555L, 0x054110510501L, 0x155150510505L, 0x555551554515L, 0x000100100555L,
+    /* 2081-2090 */
+    0x014110110501L, 0x155110510505L, 0x555551554505L, 0x000000100055L, 0x014110110500L,
+    0x155110510501L, 0x555551554505L, 0x000000000055L, 0x014110110500L, 0x055110510501L,
+    /* 2091-2099 */
+    0x155551554505L, 0x000000000055L, 0x000110110500L, 0x055110510501L, 0x155551554505L,
+    0x000000000015L, 0x000100110500L, 0x055110510501L, 0x155551554505L
+    };
+
+    /** 各节气在1900-2099年间最早的日 */
+    private static final int[] SOLAR_TERM_BASE_DAYS = { 4, 19, 3, 18, 4, 19, 4, 19, 4, 20, 4, 20, 6, 22, 6, 22, 6,
+            22, 7, 22, 6, 21, 6, 21 };
+
+    /** 每个节日的公历日期，升序 */
+    private final long[][] festivalDays;
+
+    /** 每个节气的公历日期，升序 */
+    private final long[][] solarTermDays;
+
+    /** 所有节日合并后的日期，高位为epochDay，低8位为节日序号 */
+    private final long[] allFestivals;
+
+    private ChineseCalendarService() {
+        int years = LunarCalendarUtil.MAX_YEAR - LunarCalendarUtil.MIN_YEAR + 1;
+
+        solarTermDays = new long[SolarTerm.values().length][years];
+        for (int term = 0; term < SOLAR_TERM_BASE_DAYS.length; term++) {
+            for (int i = 0; i < years; i++) {
+                solarTermDays[term][i] = solarTermEpochDay(LunarCalendarUtil.MIN_YEAR + i, term);
+            }
+        }
+
+        Festival[] festivals = Festival.values();
+        festivalDays = new long[festivals.length][];
+        int total = 0;
+        for (Festival festival : festivals) {
+            long[] days;
+            if (festival == Festival.QING_MING) {
+                days = solarTermDays[SolarTerm.QING_MING.ordinal()];
+            } else {
+                days = new long[years];
+                for (int i = 0; i < years; i++) {
+                    int year = LunarCalendarUtil.MIN_YEAR + i;
+                    if (festival == Festival.NEW_YEARS_EVE && year < LunarCalendarUtil.MAX_YEAR) {
+                        // 除夕为下一年春节的前一天，闰腊月的年份也适用
+                        days[i] = LunarCalendarUtil.toSolar(year + 1, 1, false, 1) - 1;
+                    } else if (festival == Festival.NEW_YEARS_EVE) {
+                        days[i] = LunarCalendarUtil.toSolar(year, 12, false, LunarCalendarUtil.daysInMonth(year, 12));
+                    } else {
+                        days[i] = LunarCalendarUtil.toSolar(year, festival.lunarMonth, false, festival.lunarDay);
+                    }
+                }
+            }
+            festivalDays[festival.ordinal()] = days;
+            total += days.length;
+        }
+
+        allFestivals = new long[total];
+        int k = 0;
+        for (Festival festival : festivals) {
+            for (long day : festivalDays[festival.ordinal()]) {
+                allFestivals[k++] = day << 8 | festival.ordinal();
+            }
+        }
+        Arrays.sort(allFestivals);
+    }
+
+    private static class ServiceHolder {
+        private static final ChineseCalendarService INSTANCE = new ChineseCalendarService();
+    }
+
+    public static ChineseCalendarService getInstance() {
+        return ServiceHolder.INSTANCE;
+    }
+
+    /**
+     * 查询区间内某个节日的所有日期
+     * @param festival 节日
+     * @param fromEpochDay 开始日期（含）
+     * @param toEpochDay 结束日期（含）
+     * @return 日期，升序
+     * @author ChenDuochuang
+     */
+    public LongStream festivalDays(Festival festival, long fromEpochDay, long toEpochDay) {
+        return range(festivalDays[festival.ordinal()], fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * 查询区间内某个节气的所有日期
+     * @param term 节气
+     * @param fromEpochDay 开始日期（含）
+     * @param toEpochDay 结束日期（含）
+     * @return 日期，升序
+     * @author ChenDuochuang
+     */
+    public LongStream solarTermDays(SolarTerm term, long fromEpochDay, long toEpochDay) {
+        return range(solarTermDays[term.ordinal()], fromEpochDay, toEpochDay);
+    }
+
+    /**
+     * 查询区间内所有节日的日期
+     * @param fromEpochDay 开始日期（含）
+     * @param toEpochDay 结束日期（含）
+     * @return 日期，升序
+     * @author ChenDuochuang
+     */
+    public LongStream festivalDays(long fromEpochDay, long toEpochDay) {
+        int from = lowerBound(allFestivals, fromEpochDay << 8);
+        int to = lowerBound(allFestivals, (toEpochDay + 1) << 8);
+        return Arrays.stream(allFestivals, from, Math.max(from, to)).map(value -> value >> 8).distinct();
+    }
+
+    /**
+     * 遍历区间内所有节日
+     * @param fromEpochDay 开始日期（含）
+     * @param toEpochDay 结束日期（含）
+     * @param consumer 回调，按日期升序调用
+     * @author ChenDuochuang
+     */
+    public void forEachFestival(long fromEpochDay, long toEpochDay, FestivalConsumer consumer) {
+        Festival[] festivals = Festival.values();
+        for (int i = lowerBound(allFestivals, fromEpochDay << 8); i < allFestivals.length; i++) {
+            long day = allFestivals[i] >> 8;
+            if (day > toEpochDay) {
+                return;
+            }
+            consumer.accept(day, festivals[(int) (allFestivals[i] & 0xFF)]);
+        }
+    }
+
+    /**
+     * 查询某日之后下一个节日的日期
+     * @param festival 节日
+     * @param afterEpochDay 起始日期（不含）
+     * @return 超出支持范围时为空
+     * @author ChenDuochuang
+     */
+    public OptionalLong nextFestival(Festival festival, long afterEpochDay) {
+        long[] days = festivalDays[festival.ordinal()];
+        int i = lowerBound(days, afterEpochDay + 1);
+        return i < days.length ? OptionalLong.of(days[i]) : OptionalLong.empty();
+    }
+
+    /**
+     * 查询某日之后下一个农历M月D日（非闰月）的日期，当年该月没有D日时顺延到下一个有该日的年份
+     * @param lunarMonth 农历月
+     * @param lunarDay 农历日
+     * @param afterEpochDay 起始日期（不含）
+     * @return 超出支持范围时为空
+     * @author ChenDuochuang
+     */
+    public OptionalLong nextLunarDate(int lunarMonth, int lunarDay, long afterEpochDay) {
+        if (lunarMonth < 1 || lunarMonth > 12 || lunarDay < 1 || lunarDay > 30) {
+            throw new IllegalArgumentException("Illegal lunar month or day: " + lunarMonth + "-" + lunarDay);
+        }
+        int startYear;
+        try {
+            startYear = LunarDate.year(LunarCalendarUtil.toLunar(afterEpochDay));
+        } catch (IllegalArgumentException e) {
+            if (afterEpochDay >= LunarCalendarUtil.toSolar(LunarCalendarUtil.MIN_YEAR, 1, false, 1)) {
+                return OptionalLong.empty();
+            }
+            startYear = LunarCalendarUtil.MIN_YEAR;
+        }
+        for (int year = startYear; year <= LunarCalendarUtil.MAX_YEAR; year++) {
+            if (lunarDay > LunarCalendarUtil.daysInMonth(year, lunarMonth)) {
+                continue;
+            }
+            long day = LunarCalendarUtil.toSolar(year, lunarMonth, false, lunarDay);
+            if (day > afterEpochDay) {
+                return OptionalLong.of(day);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * 查询某年某个节气的日期
+     * @param year 公历年，1900-2099
+     * @param term 节气
+     * @return
+     * @author ChenDuochuang
+     */
+    public long solarTermDay(int year, SolarTerm term) {
+        if (year < LunarCalendarUtil.MIN_YEAR || year > LunarCalendarUtil.MAX_YEAR) {
+            throw new IllegalArgumentException("Illegal year: " + year);
+        }
+        return solarTermDays[term.ordinal()][year - LunarCalendarUtil.MIN_YEAR];
+    }
+
+    /**
+     * 从SOLAR_TERM_INFO中取节气日期，第term个节气在(term / 2 + 1)月
+     */
+    private static long solarTermEpochDay(int year, int term) {
+        long info = SOLAR_TERM_INFO[year - LunarCalendarUtil.MIN_YEAR];
+        int day = SOLAR_TERM_BASE_DAYS[term] + (int) (info >>> (2 * term) & 3);
+        return LocalDate.of(year, term / 2 + 1, day).toEpochDay();
+    }
+
+    private static LongStream range(long[] days, long fromEpochDay, long toEpochDay) {
+        int from = lowerBound(days, fromEpochDay);
+        int to = lowerBound(days, toEpochDay + 1);
+        return Arrays.stream(days, from, Math.max(from, to));
+    }
+
+    /**
+     * 第一个不小于key的位置
+     */
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
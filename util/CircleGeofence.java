@@ -0,0 +1,127 @@
+package com.chen.my_project.util;
+
+import java.util.BitSet;
+
+/**
+ * 圆形围栏，半径单位为米，按球面距离判断
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class CircleGeofence implements Geofence {
+
+    /** 圆心经度 */
+    private final double lon;
+
+    /** 圆心纬度 */
+    private final double lat;
+
+    /** 半径（m） */
+    private final double radius;
+
+    /** 圆心纬度的余弦，计算距离时复用 */
+    private final double cosLat;
+
+    /** 外接矩形 */
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    /**
+     * @param lon 圆心纵坐标
+     * @param lat 圆心横坐标
+     * @param radius 圆半径（m）
+     * @author ChenDuochuang
+     */
+    public CircleGeofence(double lon, double lat, double radius) {
+        if (radius < 0) {
+            throw new IllegalArgumentException("Illegal radius: " + radius);
+        }
+        this.lon = lon;
+        this.lat = lat;
+        this.radius = radius;
+        this.cosLat = Math.cos(Math.toRadians(lat));
+
+        double deltaLat = Math.toDegrees(radius / DistanceUtil.EARTH_RADIUS_M);
+        this.minLat = Math.max(-90, lat - deltaLat);
+        this.maxLat = Math.min(90, lat + deltaLat);
+        // 外接矩形覆盖到极点时，经度方向不再收敛，直接取全部经度
+        double cosMax = Math.min(Math.cos(Math.toRadians(minLat)), Math.cos(Math.toRadians(maxLat)));
+        if (maxLat >= 90 || minLat <= -90 || cosMax <= 0) {
+            this.minLon = -180;
+            this.maxLon = 180;
+        } else {
+            double deltaLon = Math.min(180, deltaLat / cosMax);
+            this.minLon = lon - deltaLon;
+            this.maxLon = lon + deltaLon;
+        }
+    }
+
+    @Override
+    public boolean contains(double pointLon, double pointLat) {
+        if (pointLon < minLon || pointLon > maxLon || pointLat < minLat || pointLat > maxLat) {
+            return false;
+        }
+        return DistanceUtil.distanceMeters(pointLon, pointLat, lon, lat) < radius;
+    }
+
+    @Override
+    public int containsAll(double[] lons, double[] lats, BitSet out) {
+        int n = Geofence.checkBatch(lons, lats, out);
+        // 半径换算为haversine中间量的阈值，循环内不再调用asin
+        double limit = Math.sin(Math.min(Math.PI / 2, radius / DistanceUtil.EARTH_RADIUS_M / 2));
+        limit = limit * limit;
+        double centerLatRad = Math.toRadians(lat);
+        double centerLonRad = Math.toRadians(lon);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            double pointLon = lons[i];
+            double pointLat = lats[i];
+            if (pointLon < minLon || pointLon > maxLon || pointLat < minLat || pointLat > maxLat) {
+                continue;
+            }
+            double pointLatRad = Math.toRadians(pointLat);
+            double sinLat = Math.sin((pointLatRad - centerLatRad) / 2);
+            double sinLon = Math.sin((Math.toRadians(pointLon) - centerLonRad) / 2);
+            double h = sinLat * sinLat + cosLat * Math.cos(pointLatRad) * sinLon * sinLon;
+            if (h < limit) {
+                out.set(i);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    public double getMinLon() {
+        return minLon;
+    }
+
+    @Override
+    public double getMinLat() {
+        return minLat;
+    }
+
+    @Override
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    @Override
+    public double getMaxLat() {
+        return maxLat;
+    }
+}
@@ -0,0 +1,161 @@
+package com.chen.my_project.util;
+
+/**
+ * 预编译的多边形围栏
+ *
+ * <pre>
+ * 坐标串只在构造时解析一次，顶点以double[]保存，并预先计算外接矩形。
+ * contains方法不创建任何对象，也不依赖AWT，适合在定位上报的热点路径中反复调用。
+ * 构造完成后不可变，可在多线程间共享。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class CompiledPolygon implements Geofence {
+
+    /** 顶点经度 */
+    private final double[] lons;
+
+    /** 顶点纬度 */
+    private final double[] lats;
+
+    /** 外接矩形 */
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    /**
+     * 根据顶点数组创建多边形，数组会被复制
+     * @param lons 顶点经度
+     * @param lats 顶点纬度
+     * @author ChenDuochuang
+     */
+    public CompiledPolygon(double[] lons, double[] lats) {
+        if (lons.length != lats.length || lons.length < 3) {
+            throw new IllegalArgumentException("Illegal polygon, at least 3 vertices are required");
+        }
+        this.lons = lons.clone();
+        this.lats = lats.clone();
+
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < lons.length; i++) {
+            minX = Math.min(minX, lons[i]);
+            maxX = Math.max(maxX, lons[i]);
+            minY = Math.min(minY, lats[i]);
+            maxY = Math.max(maxY, lats[i]);
+        }
+        this.minLon = minX;
+        this.minLat = minY;
+        this.maxLon = maxX;
+        this.maxLat = maxY;
+    }
+
+    /**
+     * 解析坐标串创建多边形
+     * @param pointInfo 坐标点的字符串，用逗号分隔， 例如："lon1,lat1,lon2,lat2..."
+     * @return
+     * @author ChenDuochuang
+     */
+    public static CompiledPolygon parse(String pointInfo) {
+        String[] pointArr = pointInfo.split(",");
+        if (pointArr.length % 2 != 0) {
+            throw new IllegalArgumentException("Illegal polygon point info: " + pointInfo);
+        }
+        int size = pointArr.length / 2;
+        double[] lons = new double[size];
+        double[] lats = new double[size];
+        for (int i = 0; i < size; i++) {
+            lons[i] = Double.parseDouble(pointArr[2 * i].trim());
+            lats[i] = Double.parseDouble(pointArr[2 * i + 1].trim());
+        }
+
+        return new CompiledPolygon(lons, lats);
+    }
+
+    /**
+     * 判断点是否在多边形内
+     *
+     * <pre>
+     * 使用非零环绕数规则，与GeneralPath的默认规则（WIND_NON_ZERO）保持一致。
+     * </pre>
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @return
+     * @author ChenDuochuang
+     */
+    @Override
+    public boolean contains(double lon, double lat) {
+        // 先用外接矩形快速排除
+        if (lon < minLon || lon > maxLon || lat < minLat || lat > maxLat) {
+            return false;
+        }
+
+        int winding = 0;
+        int n = lons.length;
+        double x1 = lons[n - 1];
+        double y1 = lats[n - 1];
+        for (int i = 0; i < n; i++) {
+            double x2 = lons[i];
+            double y2 = lats[i];
+            if (y1 <= lat) {
+                // 向上穿过水平射线，且点在边的左侧
+                if (y2 > lat && isLeft(x1, y1, x2, y2, lon, lat) > 0) {
+                    winding++;
+                }
+            } else if (y2 <= lat && isLeft(x1, y1, x2, y2, lon, lat) < 0) {
+                // 向下穿过水平射线，且点在边的右侧
+                winding--;
+            }
+            x1 = x2;
+            y1 = y2;
+        }
+
+        return winding != 0;
+    }
+
+    /**
+     * 判断点与有向边的位置关系
+     *
+     * <pre>
+     * 大于0：点在边的左侧
+     * 等于0：点在边所在的直线上
+     * 小于0：点在边的右侧
+     * </pre>
+     */
+    private static double isLeft(double x1, double y1, double x2, double y2, double x, double y) {
+        return (x2 - x1) * (y - y1) - (x - x1) * (y2 - y1);
+    }
+
+    /**
+     * 顶点个数
+     * @return
+     */
+    public int size() {
+        return lons.length;
+    }
+
+    @Override
+    public double getMinLon() {
+        return minLon;
+    }
+
+    @Override
+    public double getMinLat() {
+        return minLat;
+    }
+
+    @Override
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    @Override
+    public double getMaxLat() {
+        return maxLat;
+    }
+}
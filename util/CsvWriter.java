@@ -0,0 +1,202 @@
+package com.chen.my_project.excel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 流式写入CSV（RFC 4180），UTF-8编码，可选gzip压缩
+ *
+ * <pre>
+ * 字符直接编码到可复用的字节缓冲区，缓冲区满时写出，写入单元格时不创建任何对象。
+ * 字段包含逗号、双引号或换行时用双引号包围，字段中的双引号写为两个双引号；行以CRLF结束。
+ * 可选写入UTF-8 BOM，使Excel能正确识别中文。
+ * close时写出缓冲区并结束gzip，不关闭输出流。非线程安全。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class CsvWriter implements Closeable {
+
+    /** 默认的缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /** 一个字符编码后最多4个字节，缓冲区剩余不足时先写出 */
+    private static final int MAX_BYTES_PER_CHAR = 4;
+
+    private final OutputStream output;
+
+    /** gzip时为压缩流，否则为null */
+    private final GZIPOutputStream gzip;
+
+    private final byte[] buffer;
+
+    private int position;
+
+    private int rowCount;
+
+    private boolean closed;
+
+    /**
+     * 不压缩，写入BOM
+     * @param output 输出流，close时不关闭
+     * @throws IOException
+     */
+    public CsvWriter(OutputStream output) throws IOException {
+        this(output, false, true, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param output 输出流，close时不关闭
+     * @param compress 是否gzip压缩
+     * @param bom 是否写入UTF-8 BOM
+     * @param bufferSize 缓冲区大小
+     * @throws IOException
+     */
+    public CsvWriter(OutputStream output, boolean compress, boolean bom, int bufferSize) throws IOException {
+        if (bufferSize < MAX_BYTES_PER_CHAR * 16) {
+            throw new IllegalArgumentException("Illegal buffer size: " + bufferSize);
+        }
+        this.gzip = compress ? new GZIPOutputStream(output, bufferSize) : null;
+        this.output = compress ? gzip : output;
+        this.buffer = new byte[bufferSize];
+        if (bom) {
+            buffer[position++] = (byte) 0xEF;
+            buffer[position++] = (byte) 0xBB;
+            buffer[position++] = (byte) 0xBF;
+        }
+    }
+
+    /**
+     * 写入一行
+     * @param values 各列的值，null写为空字段
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public void writeRow(String... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            if (values[i] != null) {
+                writeField(values[i]);
+            }
+        }
+        writeByte('\r');
+        writeByte('\n');
+        rowCount++;
+    }
+
+    /**
+     * 逐行写入
+     * @param rows 数据源，按需读取
+     * @return 写入的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public int writeRows(Iterator<String[]> rows) throws IOException {
+        int count = 0;
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 已写入的行数
+     * @return
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 写出缓冲区，压缩时同时刷新压缩流中已完成的数据
+     * @throws IOException
+     */
+    public void flush() throws IOException {
+        flushBuffer();
+        output.flush();
+    }
+
+    /**
+     * 写出缓冲区并结束gzip，不关闭输出流
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flushBuffer();
+        if (gzip != null) {
+            gzip.finish();
+        }
+        output.flush();
+    }
+
+    private void writeField(String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (quote) {
+            writeByte('"');
+        }
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (position > buffer.length - MAX_BYTES_PER_CHAR) {
+                flushBuffer();
+            }
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') {
+                    buffer[position++] = '"';
+                }
+                buffer[position++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与String.getBytes(UTF_8)一致写为?
+                buffer[position++] = '?';
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) {
+            writeByte('"');
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) c;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            output.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
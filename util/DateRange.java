@@ -0,0 +1,297 @@
+package com.chen.my_project.util;
+
+import java.text.ParseException;
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 日期区间，不可变
+ *
+ * <pre>
+ * 以距1970-01-01的天数（epochDay）表示日期，按需逐个产生，不创建日期列表。
+ * 支持步长（每隔N天）和星期过滤，星期过滤以掩码表示：星期一为第0位，星期日为第6位。
+ * 提供的Spliterator按下标均分，可直接用于并行流，在fork/join线程池中拆分处理多年的数据回补任务。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class DateRange {
+
+    /** 不过滤星期 */
+    public static final int ALL_WEEKDAYS = 0x7F;
+
+    /** 工作日（星期一至星期五） */
+    public static final int WORKDAYS = 0x1F;
+
+    /** 周末（星期六、星期日） */
+    public static final int WEEKENDS = 0x60;
+
+    /** 开始、结束日期（含） */
+    private final long startEpochDay;
+    private final long endEpochDay;
+
+    private final int step;
+
+    private final int weekdayMask;
+
+    private DateRange(long startEpochDay, long endEpochDay, int step, int weekdayMask) {
+        this.startEpochDay = startEpochDay;
+        this.endEpochDay = endEpochDay;
+        this.step = step;
+        this.weekdayMask = weekdayMask;
+    }
+
+    /**
+     * 创建日期区间
+     * @param startEpochDay 开始日期（含）
+     * @param endEpochDay 结束日期（含），早于开始日期时区间为空
+     * @return
+     * @author ChenDuochuang
+     */
+    public static DateRange of(long startEpochDay, long endEpochDay) {
+        return new DateRange(startEpochDay, endEpochDay, 1, ALL_WEEKDAYS);
+    }
+
+    /**
+     * 解析日期字符串创建日期区间
+     * @param startDate 开始日期（含），格式：yyyy-MM-dd
+     * @param endDate 结束日期（含），格式：yyyy-MM-dd
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static DateRange parse(String startDate, String endDate) throws ParseException {
+        return of(DateTimeCodec.parseEpochDay(startDate), DateTimeCodec.parseEpochDay(endDate));
+    }
+
+    /**
+     * 设置步长
+     * @param step 每隔多少天取一天，从开始日期算起
+     * @return 新的日期区间
+     * @author ChenDuochuang
+     */
+    public DateRange withStep(int step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("Illegal step: " + step);
+        }
+        return new DateRange(startEpochDay, endEpochDay, step, weekdayMask);
+    }
+
+    /**
+     * 只保留指定的星期
+     * @param daysOfWeek 星期，1-7，星期日为7
+     * @return 新的日期区间
+     * @author ChenDuochuang
+     */
+    public DateRange withWeekdays(int... daysOfWeek) {
+        int mask = 0;
+        for (int dayOfWeek : daysOfWeek) {
+            if (dayOfWeek < 1 || dayOfWeek > 7) {
+                throw new IllegalArgumentException("Illegal day of week: " + dayOfWeek);
+            }
+            mask |= 1 << (dayOfWeek - 1);
+        }
+        return withWeekdayMask(mask);
+    }
+
+    /**
+     * 只保留指定的星期
+     * @param weekdayMask 星期掩码，星期一为第0位，星期日为第6位
+     * @return 新的日期区间
+     * @author ChenDuochuang
+     */
+    public DateRange withWeekdayMask(int weekdayMask) {
+        if ((weekdayMask & ~ALL_WEEKDAYS) != 0) {
+            throw new IllegalArgumentException("Illegal weekday mask: " + Integer.toBinaryString(weekdayMask));
+        }
+        return new DateRange(startEpochDay, endEpochDay, step, weekdayMask);
+    }
+
+    /**
+     * 日期是否在区间内（同时满足步长和星期过滤）
+     * @param epochDay
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean contains(long epochDay) {
+        return epochDay >= startEpochDay && epochDay <= endEpochDay && (epochDay - startEpochDay) % step == 0
+                && matchesWeekday(epochDay);
+    }
+
+    /**
+     * 区间内的日期数，不需要遍历
+     * @return
+     * @author ChenDuochuang
+     */
+    public long count() {
+        long positions = positions();
+        if (weekdayMask == ALL_WEEKDAYS || positions == 0) {
+            return positions;
+        }
+        // 按步长取日期时，星期每7个位置循环一次
+        long count = 0;
+        int cycle = (int) Math.min(7, positions);
+        for (int i = 0; i < cycle; i++) {
+            if (matchesWeekday(startEpochDay + (long) i * step)) {
+                count += (positions - i + 6) / 7;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 区间内的日期，升序
+     * @return
+     * @author ChenDuochuang
+     */
+    public LongStream epochDays() {
+        return StreamSupport.longStream(spliterator(), false);
+    }
+
+    /**
+     * 区间内的日期，升序，可拆分为并行流
+     * @return
+     * @author ChenDuochuang
+     */
+    public LongStream parallelEpochDays() {
+        return StreamSupport.longStream(spliterator(), true);
+    }
+
+    /**
+     * 区间内的日期字符串，格式：yyyy-MM-dd，按需格式化
+     * @return
+     * @author ChenDuochuang
+     */
+    public Stream<String> formatted() {
+        return epochDays().mapToObj(DateTimeCodec::formatEpochDay);
+    }
+
+    /**
+     * 按升序遍历区间内的日期
+     * @param consumer
+     * @author ChenDuochuang
+     */
+    public void forEach(LongConsumer consumer) {
+        spliterator().forEachRemaining(consumer);
+    }
+
+    /**
+     * 按下标均分的Spliterator
+     * @return
+     * @author ChenDuochuang
+     */
+    public Spliterator.OfLong spliterator() {
+        return new RangeSpliterator(0, positions());
+    }
+
+    public long getStartEpochDay() {
+        return startEpochDay;
+    }
+
+    public long getEndEpochDay() {
+        return endEpochDay;
+    }
+
+    public int getStep() {
+        return step;
+    }
+
+    public int getWeekdayMask() {
+        return weekdayMask;
+    }
+
+    @Override
+    public String toString() {
+        return "DateRange [" + DateTimeCodec.formatEpochDay(startEpochDay) + ", "
+                + DateTimeCodec.formatEpochDay(endEpochDay) + ", step=" + step + ", weekdayMask="
+                + Integer.toBinaryString(weekdayMask) + "]";
+    }
+
+    /**
+     * 不考虑星期过滤时按步长可取的日期数
+     */
+    private long positions() {
+        return endEpochDay < startEpochDay ? 0 : (endEpochDay - startEpochDay) / step + 1;
+    }
+
+    private boolean matchesWeekday(long epochDay) {
+        // 1970-01-01为星期四，对应第3位
+        return (weekdayMask & (1 << Math.floorMod(epochDay + 3, 7L))) != 0;
+    }
+
+    /**
+     * 遍历下标区间[index, fence)，第i个位置的日期为startEpochDay + i * step
+     */
+    private final class RangeSpliterator implements Spliterator.OfLong {
+
+        /** 拆分的最小长度 */
+        private static final long MIN_SPLIT = 16;
+
+        private long index;
+
+        private final long fence;
+
+        private RangeSpliterator(long index, long fence) {
+            this.index = index;
+            this.fence = fence;
+        }
+
+        @Override
+        public boolean tryAdvance(LongConsumer action) {
+            while (index < fence) {
+                long day = startEpochDay + index++ * step;
+                if (weekdayMask == ALL_WEEKDAYS || matchesWeekday(day)) {
+                    action.accept(day);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            long i = index;
+            long end = fence;
+            index = end;
+            boolean all = weekdayMask == ALL_WEEKDAYS;
+            for (long day = startEpochDay + i * step; i < end; i++, day += step) {
+                if (all || matchesWeekday(day)) {
+                    action.accept(day);
+                }
+            }
+        }
+
+        @Override
+        public Spliterator.OfLong trySplit() {
+            long length = fence - index;
+            if (length < MIN_SPLIT) {
+                return null;
+            }
+            long mid = index + (length >>> 1);
+            RangeSpliterator prefix = new RangeSpliterator(index, mid);
+            index = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        @Override
+        public int characteristics() {
+            int characteristics = ORDERED | DISTINCT | SORTED | NONNULL | IMMUTABLE;
+            return weekdayMask == ALL_WEEKDAYS ? characteristics | SIZED | SUBSIZED : characteristics;
+        }
+
+        @Override
+        public Comparator<? super Long> getComparator() {
+            return null;
+        }
+    }
+}
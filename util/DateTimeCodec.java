@@ -0,0 +1,583 @@
+package com.chen.my_project.util;
+
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程安全的日期格式化、解析工具
+ *
+ * <pre>
+ * 按格式和语言缓存不可变的DateTimeFormatter，取代每次调用都创建的SimpleDateFormat。
+ * yyyy-MM-dd HH:mm:ss 和 yyyy-MM-dd 两种固定格式使用手写的字符解析和格式化，不创建中间对象；
+ * 时区偏移按两次时区切换之间的区间缓存，同一区间内的时间不需要重新查询时区规则。
+ *
+ * 解析与SimpleDateFormat的默认行为一致：开头的空白被忽略，只要求文本的开头符合格式，其后的内容会被忽略；
+ * 数字的位数不固定（2019-4-5 9:00:00），超出范围的日期和时间顺延（2019-02-30 即 2019-03-02）。
+ * 固定格式的快速路径只处理位数完整且值在范围内的文本，其余文本按宽松的DateTimeFormatter解析。
+ * 与SimpleDateFormat不同的是字段之间多余的空白（2019-04-05  10:00:00）不被忽略，解析失败。
+ * 时区使用类加载时的系统默认时区。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class DateTimeCodec {
+
+    /**
+     * 日期时间格式：yyyy-MM-dd HH:mm:ss
+     */
+    public static final String DATETIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 日期格式：yyyy-MM-dd
+     */
+    public static final String DATE_PATTERN = "yyyy-MM-dd";
+
+    private static final int DATETIME_LENGTH = 19;
+
+    private static final int DATE_LENGTH = 10;
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    /** 快速路径无法处理的日期 */
+    private static final long INVALID_DAY = Long.MIN_VALUE;
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /** 语言 -> 格式 -> DateTimeFormatter */
+    private static final ConcurrentHashMap<Locale, ConcurrentHashMap<String, DateTimeFormatter>> FORMATTERS =
+            new ConcurrentHashMap<>();
+
+    /** 解析用的宽松格式：语言 -> 格式 -> DateTimeFormatter */
+    private static final ConcurrentHashMap<Locale, ConcurrentHashMap<String, DateTimeFormatter>> LENIENT_FORMATTERS =
+            new ConcurrentHashMap<>();
+
+    /** 最近一次使用的时区偏移区间 */
+    private static volatile OffsetWindow window = OffsetWindow.of(System.currentTimeMillis());
+
+    private DateTimeCodec() {
+    }
+
+    /**
+     * 获取缓存的DateTimeFormatter，使用默认语言
+     * @param pattern 格式
+     * @return
+     * @author ChenDuochuang
+     */
+    public static DateTimeFormatter formatter(String pattern) {
+        return formatter(pattern, Locale.getDefault());
+    }
+
+    /**
+     * 获取缓存的DateTimeFormatter
+     * @param pattern 格式
+     * @param locale 语言
+     * @return
+     * @author ChenDuochuang
+     */
+    public static DateTimeFormatter formatter(String pattern, Locale locale) {
+        return cached(FORMATTERS, pattern, locale, false);
+    }
+
+    /**
+     * 解析用的宽松格式：数字位数不固定，超出范围的值顺延，与SimpleDateFormat的默认行为一致
+     */
+    private static DateTimeFormatter lenientFormatter(String pattern) {
+        return cached(LENIENT_FORMATTERS, pattern, Locale.getDefault(), true);
+    }
+
+    private static DateTimeFormatter cached(
+            ConcurrentHashMap<Locale, ConcurrentHashMap<String, DateTimeFormatter>> formatters, String pattern,
+            Locale locale, boolean lenient) {
+        ConcurrentHashMap<String, DateTimeFormatter> byPattern = formatters.get(locale);
+        if (byPattern == null) {
+            byPattern = formatters.computeIfAbsent(locale, key -> new ConcurrentHashMap<>());
+        }
+        DateTimeFormatter formatter = byPattern.get(pattern);
+        if (formatter == null) {
+            formatter = byPattern.computeIfAbsent(pattern, key -> lenient
+                    ? new DateTimeFormatterBuilder().parseLenient().appendPattern(key).toFormatter(locale)
+                            .withResolverStyle(ResolverStyle.LENIENT)
+                    : DateTimeFormatter.ofPattern(key, locale));
+        }
+        return formatter;
+    }
+
+    /**
+     * 按指定格式格式化毫秒级时间戳
+     * @param millis 时间戳
+     * @param pattern 格式
+     * @return
+     * @author ChenDuochuang
+     */
+    public static String format(long millis, String pattern) {
+        if (DATETIME_PATTERN.equals(pattern)) {
+            return formatDateTime(millis);
+        }
+        if (DATE_PATTERN.equals(pattern)) {
+            return formatDate(millis);
+        }
+        return formatter(pattern).format(Instant.ofEpochMilli(millis).atZone(ZONE));
+    }
+
+    /**
+     * 按指定格式解析为毫秒级时间戳，缺少的日期部分按1970-01-01，缺少的时间部分按00:00:00
+     * @param text 日期字符串
+     * @param pattern 格式
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static long parse(String text, String pattern) throws ParseException {
+        if (DATETIME_PATTERN.equals(pattern)) {
+            return parseDateTime(text);
+        }
+        if (DATE_PATTERN.equals(pattern)) {
+            return toEpochMilli(parseEpochDay(text), 0);
+        }
+        return parseSlow(text, lenientFormatter(pattern));
+    }
+
+    /**
+     * 格式化为 yyyy-MM-dd HH:mm:ss
+     * @param millis 时间戳
+     * @return
+     * @author ChenDuochuang
+     */
+    public static String formatDateTime(long millis) {
+        char[] buf = new char[DATETIME_LENGTH];
+        if (formatDateTime(millis, buf, 0) < 0) {
+            return formatter(DATETIME_PATTERN).format(Instant.ofEpochMilli(millis).atZone(ZONE));
+        }
+        return new String(buf);
+    }
+
+    /**
+     * 格式化为 yyyy-MM-dd HH:mm:ss 并追加到sb
+     * @param millis 时间戳
+     * @param sb
+     * @author ChenDuochuang
+     */
+    public static void formatDateTime(long millis, StringBuilder sb) {
+        long local = millis + offsetMillis(millis);
+        long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+        if (!appendDate(epochDay, sb)) {
+            sb.append(formatter(DATETIME_PATTERN).format(Instant.ofEpochMilli(millis).atZone(ZONE)));
+            return;
+        }
+        sb.append(' ');
+        append2(secondOfDay / 3600, sb);
+        sb.append(':');
+        append2(secondOfDay / 60 % 60, sb);
+        sb.append(':');
+        append2(secondOfDay % 60, sb);
+    }
+
+    /**
+     * 格式化为 yyyy-MM-dd HH:mm:ss 并写入buf
+     * @param millis 时间戳
+     * @param buf 至少有19个字符的剩余空间
+     * @param offset 写入位置
+     * @return 写入结束的位置，年份不是4位数时返回-1且不写入
+     * @author ChenDuochuang
+     */
+    public static int formatDateTime(long millis, char[] buf, int offset) {
+        long local = millis + offsetMillis(millis);
+        long epochDay = Math.floorDiv(local, MILLIS_PER_DAY);
+        int secondOfDay = (int) (Math.floorMod(local, MILLIS_PER_DAY) / 1000);
+        int pos = writeDate(epochDay, buf, offset);
+        if (pos < 0) {
+            return -1;
+        }
+        buf[pos] = ' ';
+        write2(secondOfDay / 3600, buf, pos + 1);
+        buf[pos + 3] = ':';
+        write2(secondOfDay / 60 % 60, buf, pos + 4);
+        buf[pos + 6] = ':';
+        write2(secondOfDay % 60, buf, pos + 7);
+        return pos + 9;
+    }
+
+    /**
+     * 格式化为 yyyy-MM-dd
+     * @param millis 时间戳
+     * @return
+     * @author ChenDuochuang
+     */
+    public static String formatDate(long millis) {
+        return formatEpochDay(Math.floorDiv(millis + offsetMillis(millis), MILLIS_PER_DAY));
+    }
+
+    /**
+     * 将距1970-01-01的天数格式化为 yyyy-MM-dd
+     * @param epochDay
+     * @return
+     * @author ChenDuochuang
+     */
+    public static String formatEpochDay(long epochDay) {
+        char[] buf = new char[DATE_LENGTH];
+        if (writeDate(epochDay, buf, 0) < 0) {
+            return LocalDate.ofEpochDay(epochDay).format(formatter(DATE_PATTERN));
+        }
+        return new String(buf);
+    }
+
+    /**
+     * 将距1970-01-01的天数格式化为 yyyy-MM-dd 并追加到sb
+     * @param epochDay
+     * @param sb
+     * @author ChenDuochuang
+     */
+    public static void formatEpochDay(long epochDay, StringBuilder sb) {
+        if (!appendDate(epochDay, sb)) {
+            sb.append(LocalDate.ofEpochDay(epochDay).format(formatter(DATE_PATTERN)));
+        }
+    }
+
+    /**
+     * 解析 yyyy-MM-dd HH:mm:ss 为毫秒级时间戳
+     * @param text 日期字符串
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static long parseDateTime(CharSequence text) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Unparseable date: null", 0);
+        }
+        if (text.length() >= DATETIME_LENGTH && isDateLayout(text) && text.charAt(10) == ' '
+                && text.charAt(13) == ':' && text.charAt(16) == ':') {
+            long epochDay = toEpochDay(text);
+            int hour = digits2(text, 11);
+            int minute = digits2(text, 14);
+            int second = digits2(text, 17);
+            if (epochDay != INVALID_DAY && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59 && second >= 0
+                    && second <= 59) {
+                return toEpochMilli(epochDay, hour * 3600 + minute * 60 + second);
+            }
+        }
+        return parseSlow(text, lenientFormatter(DATETIME_PATTERN));
+    }
+
+    /**
+     * 解析 yyyy-MM-dd 为距1970-01-01的天数
+     * @param text 日期字符串
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static long parseEpochDay(CharSequence text) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Unparseable date: null", 0);
+        }
+        if (text.length() >= DATE_LENGTH && isDateLayout(text)) {
+            long epochDay = toEpochDay(text);
+            if (epochDay != INVALID_DAY) {
+                return epochDay;
+            }
+        }
+        long millis = parseSlow(text, lenientFormatter(DATE_PATTERN));
+        return Math.floorDiv(millis + offsetMillis(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * 解析 HH:mm 为当天的分钟数，时、分可以是1位或2位数字，不创建任何对象
+     * @param text 时间字符串，小时为0-24（24仅限24:00），分钟为0-59
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static int parseMinuteOfDay(CharSequence text) throws ParseException {
+        if (text == null) {
+            throw new ParseException("Unparseable date: null", 0);
+        }
+        int length = text.length();
+        int pos = 0;
+        int hour = 0;
+        int hourEnd = Math.min(length, 2);
+        while (pos < hourEnd && isDigit(text.charAt(pos))) {
+            hour = hour * 10 + (text.charAt(pos++) - '0');
+        }
+        if (pos == 0 || pos == length || text.charAt(pos) != ':') {
+            throw unparseable(text, pos);
+        }
+        int minuteStart = ++pos;
+        int minute = 0;
+        int minuteEnd = Math.min(length, minuteStart + 2);
+        while (pos < minuteEnd && isDigit(text.charAt(pos))) {
+            minute = minute * 10 + (text.charAt(pos++) - '0');
+        }
+        if (pos == minuteStart || minute > 59 || hour > 24 || (hour == 24 && minute != 0)) {
+            throw unparseable(text, minuteStart);
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * 验证日期字符串是否符合格式：按格式解析后再格式化，与原字符串一致时才有效
+     *
+     * <pre>
+     * 因此2007-02-29、2019-04-2000:00:00等都会被判为无效。
+     * </pre>
+     * @param text 日期字符串
+     * @param pattern 格式
+     * @return
+     * @author ChenDuochuang
+     */
+    public static boolean isValid(String text, String pattern) {
+        if (text == null || pattern == null) {
+            return false;
+        }
+        try {
+            DateTimeFormatter formatter = formatter(pattern);
+            return formatter.format(formatter.parse(text)).equals(text);
+        } catch (DateTimeException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 将本地日期和当天的秒数转换为毫秒级时间戳
+     * @param epochDay 距1970-01-01的天数
+     * @param secondOfDay 当天的秒数
+     * @return
+     * @author ChenDuochuang
+     */
+    public static long toEpochMilli(long epochDay, int secondOfDay) {
+        long local = epochDay * MILLIS_PER_DAY + secondOfDay * 1000L;
+        OffsetWindow w = window;
+        long millis = local - w.offsetMillis;
+        // 离时区切换超过一天时本地时间不会有歧义，直接使用缓存的偏移
+        if (millis >= w.safeStart && millis < w.safeEnd) {
+            return millis;
+        }
+        LocalDateTime dateTime = LocalDateTime.ofEpochSecond(Math.floorDiv(local, 1000), 0, ZoneOffset.UTC);
+        // 夏令时结束时重复的本地时间取较晚的时刻，与SimpleDateFormat一致
+        millis = dateTime.atZone(ZONE).withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+        window = OffsetWindow.of(millis);
+        return millis;
+    }
+
+    /**
+     * 时间戳对应的时区偏移（毫秒）
+     * @param millis 时间戳
+     * @return
+     * @author ChenDuochuang
+     */
+    public static int offsetMillis(long millis) {
+        OffsetWindow w = window;
+        if (millis >= w.start && millis < w.end) {
+            return w.offsetMillis;
+        }
+        w = OffsetWindow.of(millis);
+        window = w;
+        return w.offsetMillis;
+    }
+
+    private static long parseSlow(CharSequence text, DateTimeFormatter formatter) throws ParseException {
+        TemporalAccessor parsed;
+        try {
+            parsed = formatter.parse(text, new ParsePosition(skipWhitespace(text)));
+        } catch (DateTimeParseException e) {
+            throw unparseable(text, e.getErrorIndex());
+        }
+        try {
+            LocalDate date = parsed.query(TemporalQueries.localDate());
+            LocalTime time = parsed.query(TemporalQueries.localTime());
+            ZoneId zone = parsed.query(TemporalQueries.zone());
+            if (date == null) {
+                date = LocalDate.ofEpochDay(0);
+            }
+            if (time == null) {
+                time = LocalTime.MIDNIGHT;
+            }
+            if (zone != null) {
+                return ZonedDateTime.of(date, time, zone).toInstant().toEpochMilli();
+            }
+            return toEpochMilli(date.toEpochDay(), time.toSecondOfDay()) + time.getNano() / 1000000;
+        } catch (DateTimeException e) {
+            throw unparseable(text, 0);
+        }
+    }
+
+    /**
+     * 开头空白之后的位置，SimpleDateFormat解析时忽略开头的空白
+     */
+    private static int skipWhitespace(CharSequence text) {
+        int i = 0;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static ParseException unparseable(CharSequence text, int errorOffset) {
+        return new ParseException("Unparseable date: \"" + text + "\"", errorOffset);
+    }
+
+    /**
+     * 前10个字符是否为 dddd-dd-dd
+     */
+    private static boolean isDateLayout(CharSequence text) {
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            char c = text.charAt(i);
+            if (i == 4 || i == 7 ? c != '-' : !isDigit(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 把 yyyy-MM-dd 转换为距1970-01-01的天数，调用前须确认格式；月、日超出范围时返回INVALID_DAY
+     */
+    private static long toEpochDay(CharSequence text) {
+        int year = digits2(text, 0) * 100 + digits2(text, 2);
+        int month = digits2(text, 5);
+        int day = digits2(text, 8);
+        if (month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return INVALID_DAY;
+        }
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static int digits2(CharSequence text, int index) {
+        return (text.charAt(index) - '0') * 10 + (text.charAt(index + 1) - '0');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * 按 yyyy-MM-dd 写入buf，年份不是4位数时返回-1
+     */
+    private static int writeDate(long epochDay, char[] buf, int offset) {
+        long civil = toCivil(epochDay);
+        if (civil < 0) {
+            return -1;
+        }
+        int year = (int) (civil >>> 9);
+        write2(year / 100, buf, offset);
+        write2(year % 100, buf, offset + 2);
+        buf[offset + 4] = '-';
+        write2((int) (civil >>> 5) & 0xF, buf, offset + 5);
+        buf[offset + 7] = '-';
+        write2((int) civil & 0x1F, buf, offset + 8);
+        return offset + DATE_LENGTH;
+    }
+
+    private static boolean appendDate(long epochDay, StringBuilder sb) {
+        long civil = toCivil(epochDay);
+        if (civil < 0) {
+            return false;
+        }
+        int year = (int) (civil >>> 9);
+        append2(year / 100, sb);
+        append2(year % 100, sb);
+        sb.append('-');
+        append2((int) (civil >>> 5) & 0xF, sb);
+        sb.append('-');
+        append2((int) civil & 0x1F, sb);
+        return true;
+    }
+
+    /**
+     * 距1970-01-01的天数转换为公历年月日，压缩为 year << 9 | month << 5 | day，年份不在0-9999时返回-1
+     */
+    private static long toCivil(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            return -1;
+        }
+        return year << 9 | month << 5 | day;
+    }
+
+    private static void write2(int value, char[] buf, int offset) {
+        buf[offset] = (char) ('0' + value / 10);
+        buf[offset + 1] = (char) ('0' + value % 10);
+    }
+
+    private static void append2(int value, StringBuilder sb) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    /**
+     * 两次时区切换之间的区间及其偏移，不可变
+     */
+    private static final class OffsetWindow {
+
+        /** 区间[start, end)，毫秒级时间戳 */
+        private final long start;
+        private final long end;
+
+        /** 区间两端各收缩一天，该范围内的本地时间没有歧义 */
+        private final long safeStart;
+        private final long safeEnd;
+
+        private final int offsetMillis;
+
+        private OffsetWindow(long start, long end, int offsetMillis) {
+            this.start = start;
+            this.end = end;
+            this.safeStart = start == Long.MIN_VALUE ? start : start + MILLIS_PER_DAY;
+            this.safeEnd = end == Long.MAX_VALUE ? end : end - MILLIS_PER_DAY;
+            this.offsetMillis = offsetMillis;
+        }
+
+        private static OffsetWindow of(long millis) {
+            ZoneRules rules = ZONE.getRules();
+            Instant instant = Instant.ofEpochMilli(millis);
+            ZoneOffset offset = rules.getOffset(instant);
+            if (rules.isFixedOffset()) {
+                return new OffsetWindow(Long.MIN_VALUE, Long.MAX_VALUE, offset.getTotalSeconds() * 1000);
+            }
+            ZoneOffsetTransition previous = rules.previousTransition(instant);
+            ZoneOffsetTransition next = rules.nextTransition(instant);
+            // 恰好位于切换时刻时，previousTransition返回的是更早的一次切换
+            long start = previous != null && previous.getOffsetAfter().equals(offset)
+                    ? previous.toEpochSecond() * 1000 : previous == null ? Long.MIN_VALUE : millis;
+            long end = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+            return new OffsetWindow(start, end, offset.getTotalSeconds() * 1000);
+        }
+    }
+}
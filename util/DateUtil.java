@@ -1,17 +1,18 @@
 package com.chen.my_project.util;
 
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * 时间工具类
  * 
+ * <pre>
+ * 格式化和解析统一由DateTimeCodec完成，不再每次调用都创建SimpleDateFormat，可在多线程间并发调用。
+ * </pre>
+ * 
  * @author ChenDuochuang
  * @date 2018年11月6日
  */
@@ -27,13 +28,15 @@ public final class DataUtils {
 
     /**
      * 获取当前系统时间
+     * 
+     * <pre>
+     * 同一秒内的调用返回同一个缓存的字符串，见CachedClock
+     * </pre>
      * @return
      * @author ChenDuochuang
      */
     public static String getCurrentTime() {
-        Date date = new Date();
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(STR_DATETIME_FORMAT, Locale.getDefault());
-        return simpleDateFormat.format(date);
+        return CachedClock.getDefault().currentTime();
     }
 
     /**
@@ -43,9 +46,7 @@ public final class DataUtils {
      * @author ChenDuochuang
      */
     public static String stampToDate(long stamp) {
-        Date date = new Date(stamp);
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(STR_DATETIME_FORMAT, Locale.getDefault());
-        return simpleDateFormat.format(date);
+        return DateTimeCodec.formatDateTime(stamp);
     }
 
     /**
@@ -56,9 +57,7 @@ public final class DataUtils {
      * @author ChenDuochuang
      */
     public static long dateToStamp(String dateString) throws ParseException {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(STR_DATETIME_FORMAT, Locale.getDefault());
-        Date date = simpleDateFormat.parse(dateString);
-        return date.getTime();
+        return DateTimeCodec.parseDateTime(dateString);
     }
 
     /**
@@ -68,8 +67,7 @@ public final class DataUtils {
      * @author ChenDC
      */
     public static String getDateString(Date date) {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        return sdf.format(date);
+        return DateTimeCodec.formatDate(date.getTime());
     }
 
     /**
@@ -81,14 +79,16 @@ public final class DataUtils {
      * @throws ParseException
      */
     public static String reduceDataTime(String dataTime, int seconds) throws ParseException {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(STR_DATETIME_FORMAT, Locale.getDefault());
-        long timeStamp = simpleDateFormat.parse(dataTime).getTime();
-        Date date = new Date(timeStamp - seconds * 1000);
-        return simpleDateFormat.format(date);
+        long timeStamp = DateTimeCodec.parseDateTime(dataTime);
+        return DateTimeCodec.formatDateTime(timeStamp - seconds * 1000L);
     }
 
     /**
      * 判断2个时间段是否有重叠
+     * 
+     * <pre>
+     * 需要在大量时间段之间校验重叠时，应使用IntervalIndex
+     * </pre>
      * @param firstStartTime
      * @param firstEndTime
      * @param secondStartTime
@@ -98,14 +98,12 @@ public final class DataUtils {
      */
     public static boolean isTimeOverLap(String firstStartTime, String firstEndTime, String secondStartTime,
             String secondEndTime) throws ParseException {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        Date firstStartDate = simpleDateFormat.parse(firstStartTime);
-        Date firstEndDate = simpleDateFormat.parse(firstEndTime);
-        Date secondStartDate = simpleDateFormat.parse(secondStartTime);
-        Date secondEndDate = simpleDateFormat.parse(secondEndTime);
+        int firstStart = DateTimeCodec.parseMinuteOfDay(firstStartTime);
+        int firstEnd = DateTimeCodec.parseMinuteOfDay(firstEndTime);
+        int secondStart = DateTimeCodec.parseMinuteOfDay(secondStartTime);
+        int secondEnd = DateTimeCodec.parseMinuteOfDay(secondEndTime);
 
-        return firstStartDate.getTime() <= secondEndDate.getTime()
-                && firstEndDate.getTime() >= secondStartDate.getTime() ? true : false;
+        return firstStart <= secondEnd && firstEnd >= secondStart;
     }
 
     /**
@@ -115,21 +113,17 @@ public final class DataUtils {
      * @throws ParseException
      */
     public static String dayOfWeek(String dateTime) throws ParseException {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        Calendar calendar = Calendar.getInstance();
-        int dayOfWeek = 0;
-        calendar.setTime(simpleDateFormat.parse(dateTime));
-        if (calendar.get(Calendar.DAY_OF_WEEK) == Calendar.SUNDAY) {
-            dayOfWeek = 7;
-        } else {
-            dayOfWeek = calendar.get(Calendar.DAY_OF_WEEK) - 1;
-        }
+        int dayOfWeek = TimeWindowRule.dayOfWeek(DateTimeCodec.parseEpochDay(dateTime));
 
         return String.valueOf(dayOfWeek);
     }
 
     /**
      * 判断当前时间是否在一段时间内
+     * 
+     * <pre>
+     * 同一规则需要反复判断时，应使用TimeWindowRule预先编译
+     * </pre>
      * @param nowTime 时间格式： HH:mm
      * @param startTime 时间格式： HH:mm
      * @param endTime 时间格式： HH:mm
@@ -137,24 +131,15 @@ public final class DataUtils {
      * @throws ParseException
      */
     public static boolean isInEffectiveTime(String nowTime, String startTime, String endTime) throws Exception {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        Date nowDate = simpleDateFormat.parse(nowTime);
-        Date startDate = simpleDateFormat.parse(startTime);
-        Date endDate = simpleDateFormat.parse(endTime);
+        int now = DateTimeCodec.parseMinuteOfDay(nowTime);
+        int start = DateTimeCodec.parseMinuteOfDay(startTime);
+        int end = DateTimeCodec.parseMinuteOfDay(endTime);
 
-        if (nowDate.getTime() == startDate.getTime() || nowDate.getTime() == endDate.getTime()) {
+        if (now == start || now == end) {
             return true;
         }
 
-        Calendar date = Calendar.getInstance();
-        Calendar begin = Calendar.getInstance();
-        Calendar end = Calendar.getInstance();
-
-        date.setTime(nowDate);
-        begin.setTime(startDate);
-        end.setTime(endDate);
-
-        return date.after(begin) && date.before(end);
+        return now > start && now < end;
     }
 
     /**
@@ -164,6 +149,9 @@ public final class DataUtils {
      * @return
      */
     public static boolean isInEffectiveWeek(String nowWeek, String effectiveWeek) {
+        if (nowWeek.length() == 1) {
+            return effectiveWeek.indexOf(nowWeek.charAt(0)) != -1;
+        }
         return (effectiveWeek.indexOf(nowWeek) == -1) ? false : true;
     }
 
@@ -176,11 +164,10 @@ public final class DataUtils {
      * @author ChenDuochuang
      */
     public static int differentDays(String startTime, String endTime) throws ParseException {
-        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(STR_DATETIME_FORMAT, Locale.getDefault());
-        Date startDateTime = simpleDateFormat.parse(startTime);
-        Date endDateTime = simpleDateFormat.parse(endTime);
+        long startDateTime = DateTimeCodec.parseDateTime(startTime);
+        long endDateTime = DateTimeCodec.parseDateTime(endTime);
 
-        return (int) ((endDateTime.getTime() - startDateTime.getTime()) / (24 * 3600 * 1000));
+        return (int) ((endDateTime - startDateTime) / (24 * 3600 * 1000));
     }
 
     /**
@@ -196,17 +183,8 @@ public final class DataUtils {
      * @author ChenDuochuang
      */
     public static boolean isValidateDate(String datetimeStr, String dateFormatStr) {
-        boolean convertSuccess = true;
-        SimpleDateFormat dateFormat = new SimpleDateFormat(dateFormatStr);
-        try {
-            // 设置lenient为false. 否则SimpleDateFormat会比较宽松地验证日期，比如2007/02/29会被接受，并转换成2007/03/01
-            dateFormat.setLenient(false);
-            Date date = dateFormat.parse(datetimeStr);
-            return dateFormat.format(date).equals(datetimeStr);
-        } catch (Exception e) {
-            convertSuccess = false;
-        }
-        return convertSuccess;
+        // 解析后再格式化并与原字符串比较，2007/02/29之类不存在的日期不会被接受
+        return DateTimeCodec.isValid(datetimeStr, dateFormatStr);
     }
 
     /**
@@ -237,6 +215,10 @@ public final class DataUtils {
 
     /**
      * 获取开始日期到结束日期的内的每个日期
+     * 
+     * <pre>
+     * 只需遍历一次时应使用DateRange，按需产生日期而不创建列表
+     * </pre>
      * @param startDate
      * @param endDate
      * @return
@@ -244,18 +226,10 @@ public final class DataUtils {
      * @author ChenDuochuang
      */
     public static List<String> getEverydayDate(String startDate, String endDate) throws ParseException {
-        List<String> stringList = new ArrayList<>();
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.CHINA);
+        DateRange range = DateRange.parse(startDate, endDate);
 
-        Date start = dateFormat.parse(startDate);
-        Date end = dateFormat.parse(endDate);
-
-        Calendar calendar = Calendar.getInstance();
-        calendar.setTime(start);
-        while (calendar.getTime().compareTo(end) < 1) {
-            stringList.add(dateFormat.format(calendar.getTime()));
-            calendar.add(Calendar.DATE, 1);
-        }
+        List<String> stringList = new ArrayList<>((int) Math.min(range.count(), 1 << 16));
+        range.forEach(day -> stringList.add(DateTimeCodec.formatEpochDay(day)));
         return stringList;
     }
 
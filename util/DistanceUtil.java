@@ -9,6 +9,17 @@ public final class DistanceUtil {
      */
     private static final double EARTH_RADIUS_KM = 6378.137;
 
+    /**
+     * 地球半径（m）
+     */
+    public static final double EARTH_RADIUS_M = EARTH_RADIUS_KM * 1000;
+
+    /**
+     * 保留一位小数的格式，DecimalFormat非线程安全，按线程缓存
+     */
+    private static final ThreadLocal<DecimalFormat> ONE_DECIMAL_FORMAT = ThreadLocal
+            .withInitial(() -> new DecimalFormat("#.0"));
+
     private DistanceUtil() {
     };
 
@@ -23,7 +34,7 @@ public final class DistanceUtil {
     }
 
     /**
-     * 根据经纬度计算两点之间的距离（单位米）
+     * 根据经纬度计算两点之间的距离（单位米），保留一位小数
      * @param longitude1
      * @param latitude1
      * @param longitude2
@@ -32,18 +43,79 @@ public final class DistanceUtil {
      * @author ChenDuochuang
      */
     public static String getDistance(double longitude1, double latitude1, double longitude2, double latitude2) {
-        double Lat1 = rad(latitude1); // 纬度
-        double Lat2 = rad(latitude2);
-        double a = Lat1 - Lat2;// 两点纬度之差
-        double b = rad(longitude1) - rad(longitude2); // 经度之差
-        double s = 2 * Math.asin(Math.sqrt(Math.pow(Math.sin(a / 2), 2) + Math.cos(Lat1) * Math.cos(Lat2)
-                * Math.pow(Math.sin(b / 2), 2)));// 计算两点距离的公式
-        s = s * EARTH_RADIUS_KM * 1000;// 弧长乘地球半径（半径为米）
+        double s = distanceMeters(longitude1, latitude1, longitude2, latitude2);
         s = Math.round(s * 10000d) / 10000d;// 精确距离的数值
-        // s = s / 1000;// 将单位转换为km，如果想得到以米为单位的数据 就不用除以1000
         // 四舍五入 保留一位小数
-        DecimalFormat df = new DecimalFormat("#.0");
-        return df.format(s);
+        return ONE_DECIMAL_FORMAT.get().format(s);
+    }
+
+    /**
+     * 根据经纬度计算两点之间的球面距离（单位米）
+     * @param longitude1
+     * @param latitude1
+     * @param longitude2
+     * @param latitude2
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double distanceMeters(double longitude1, double latitude1, double longitude2, double latitude2) {
+        double lat1 = rad(latitude1); // 纬度
+        double lat2 = rad(latitude2);
+        double sinLat = Math.sin((lat1 - lat2) / 2);// 两点纬度之差
+        double sinLon = Math.sin((rad(longitude1) - rad(longitude2)) / 2); // 经度之差
+        double h = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLon * sinLon;
+        // 计算两点距离的公式，弧长乘地球半径
+        return 2 * Math.asin(Math.sqrt(Math.min(1, h))) * EARTH_RADIUS_M;
+    }
+
+    /**
+     * 根据经纬度近似计算两点之间的距离（单位米）
+     *
+     * <pre>
+     * 使用等距圆柱投影，只需一次cos，不调用asin，
+     * 两点相距几十公里以内时误差远小于GPS定位误差，适合短距离比较。
+     * </pre>
+     * @param longitude1
+     * @param latitude1
+     * @param longitude2
+     * @param latitude2
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double approxDistanceMeters(double longitude1, double latitude1, double longitude2,
+            double latitude2) {
+        return Math.sqrt(approxDistanceSquared(longitude1, latitude1, longitude2, latitude2));
+    }
+
+    /**
+     * 根据经纬度近似计算两点之间距离的平方（单位平方米），用于与半径的平方比较
+     * @param longitude1
+     * @param latitude1
+     * @param longitude2
+     * @param latitude2
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double approxDistanceSquared(double longitude1, double latitude1, double longitude2,
+            double latitude2) {
+        double x = rad(longitude1 - longitude2) * Math.cos(rad((latitude1 + latitude2) / 2));
+        double y = rad(latitude1 - latitude2);
+        return (x * x + y * y) * EARTH_RADIUS_M * EARTH_RADIUS_M;
+    }
+
+    /**
+     * 近似判断两点之间的距离是否小于指定距离，不开方
+     * @param longitude1
+     * @param latitude1
+     * @param longitude2
+     * @param latitude2
+     * @param meters 距离（米）
+     * @return
+     * @author ChenDuochuang
+     */
+    public static boolean isWithinApprox(double longitude1, double latitude1, double longitude2, double latitude2,
+            double meters) {
+        return approxDistanceSquared(longitude1, latitude1, longitude2, latitude2) < meters * meters;
     }
 
     /**
@@ -54,10 +126,17 @@ public final class DistanceUtil {
      */
     public static String meterToKiloMeter(String distance) {
         double meter = Double.parseDouble(distance);
-        meter = meter / 1000;
-        // 四舍五入 保留一位小数
-        DecimalFormat df = new DecimalFormat("#.0");
-        return df.format(meter);
+        return ONE_DECIMAL_FORMAT.get().format(meterToKiloMeter(meter));
+    }
+
+    /**
+     * 单位转换：米转换千米
+     * @param meter
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double meterToKiloMeter(double meter) {
+        return meter / 1000;
     }
 
     /**
@@ -0,0 +1,39 @@
+package com.chen.my_project.excel;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注字段对应的Excel列，供ExcelRowMapper使用
+ *
+ * <pre>
+ * 支持的字段类型：String、int/Integer、long/Long、double/Double、BigDecimal、boolean/Boolean、
+ * Date、LocalDate、LocalDateTime
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ExcelColumn {
+
+    /**
+     * 列号，从0开始
+     */
+    int index();
+
+    /**
+     * 日期格式，单元格为文本时按该格式解析；为空时Date、LocalDateTime使用yyyy-MM-dd HH:mm:ss，LocalDate使用yyyy-MM-dd
+     */
+    String pattern() default "";
+
+    /**
+     * 是否必填，为true时单元格为空会抛出异常
+     */
+    boolean required() default false;
+}
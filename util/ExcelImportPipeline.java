@@ -0,0 +1,563 @@
+package com.chen.my_project.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * 流水线方式的Excel导入：解析 → 映射和校验 → 分批保存
+ *
+ * <pre>
+ * 三个阶段通过有界队列连接，同时运行：调用线程流式解析sheet，多个校验线程将行映射为对象并校验，
+ * 校验通过的对象按批放入保存队列，多个保存线程逐批调用BatchSink。
+ * 下游阶段较慢时上游在队列满时等待，内存中最多保留 queueCapacity 行、workers * batchSize 行（各校验线程未满的批）
+ * 和 2 * persisters 批，整体耗时取决于最慢的阶段，而不是各阶段耗时之和。
+ *
+ * 映射失败（IllegalArgumentException）、校验不通过和保存失败的行都作为错误行逐行写入错误报告（CSV），
+ * 内容为行号、错误信息和原始各列的值，导入继续进行；其他异常视为导入失败，所有阶段停止。
+ * 校验线程或保存线程多于1个时，各批的保存顺序与文件中的行顺序不一定一致。
+ * 对象不可变，配置一次后可在多线程间共享。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelImportPipeline<T> {
+
+    /** 日志 */
+    private static final Logger logger = LogManager.getLogger(ExcelImportPipeline.class);
+
+    /** 默认的每批行数 */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    /** 错误报告的表头，之后为原始各列的值 */
+    private static final String[] ERROR_HEADERS = { "行号", "错误信息" };
+
+    /** 阶段结束的标记 */
+    private static final Object END = new Object();
+
+    /** 导入线程的编号 */
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * 校验
+     */
+    public interface Validator<T> {
+
+        /**
+         * @param value 映射后的对象
+         * @return 错误信息，校验通过时为null
+         */
+        String validate(T value);
+    }
+
+    /**
+     * 分批保存
+     */
+    public interface BatchSink<T> {
+
+        /**
+         * 保存一批对象，多个保存线程时会被并发调用；抛出Exception时该批的行都记为错误行
+         * @param batch 一批对象，调用结束后不再使用
+         * @throws Exception
+         */
+        void write(List<T> batch) throws Exception;
+    }
+
+    private final ExcelRowMapper<T> mapper;
+
+    private final BatchSink<T> sink;
+
+    private final Validator<? super T> validator;
+
+    private final int sheetIndex;
+
+    private final int firstRow;
+
+    private final int workers;
+
+    private final int persisters;
+
+    private final int batchSize;
+
+    private final int queueCapacity;
+
+    /**
+     * 读取第一个sheet，跳过第一行（表头），不校验，单线程校验和保存
+     * @param mapper 行映射器
+     * @param sink 分批保存
+     */
+    public ExcelImportPipeline(ExcelRowMapper<T> mapper, BatchSink<T> sink) {
+        this(mapper, sink, value -> null, 0, 1, 1, 1, DEFAULT_BATCH_SIZE, ExcelStreamReader.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    private ExcelImportPipeline(ExcelRowMapper<T> mapper, BatchSink<T> sink, Validator<? super T> validator,
+            int sheetIndex, int firstRow, int workers, int persisters, int batchSize, int queueCapacity) {
+        if (mapper == null || sink == null || validator == null) {
+            throw new IllegalArgumentException("Mapper, sink and validator must not be null");
+        }
+        if (sheetIndex < 0 || firstRow < 0) {
+            throw new IllegalArgumentException("Illegal sheet index or first row: " + sheetIndex + ", " + firstRow);
+        }
+        if (workers <= 0 || persisters <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Illegal import pipeline config: " + workers + ", " + persisters + ", "
+                    + batchSize + ", " + queueCapacity);
+        }
+        this.mapper = mapper;
+        this.sink = sink;
+        this.validator = validator;
+        this.sheetIndex = sheetIndex;
+        this.firstRow = firstRow;
+        this.workers = workers;
+        this.persisters = persisters;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public ExcelImportPipeline<T> withValidator(Validator<? super T> validator) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param sheetIndex sheet序号，从0开始
+     * @return
+     */
+    public ExcelImportPipeline<T> withSheetIndex(int sheetIndex) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param firstRow 第一个数据行的行号，之前的行（如表头）跳过
+     * @return
+     */
+    public ExcelImportPipeline<T> withFirstRow(int firstRow) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param workers 映射和校验的线程数
+     * @return
+     */
+    public ExcelImportPipeline<T> withWorkers(int workers) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param persisters 保存的线程数
+     * @return
+     */
+    public ExcelImportPipeline<T> withPersisters(int persisters) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param batchSize 每批的行数
+     * @return
+     */
+    public ExcelImportPipeline<T> withBatchSize(int batchSize) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * @param queueCapacity 解析与校验之间的队列长度
+     * @return
+     */
+    public ExcelImportPipeline<T> withQueueCapacity(int queueCapacity) {
+        return new ExcelImportPipeline<>(mapper, sink, validator, sheetIndex, firstRow, workers, persisters,
+                batchSize, queueCapacity);
+    }
+
+    /**
+     * 导入上传文件，上传文件先保存为临时文件，按文件头判断格式
+     * @param multipartFile
+     * @param errorReport 错误报告的输出流，写入带BOM的UTF-8 CSV，不关闭；为null时只统计错误行数
+     * @return
+     * @throws IOException
+     * @throws IllegalStateException 导入失败
+     * @author ChenDuochuang
+     */
+    public Result run(MultipartFile multipartFile, OutputStream errorReport) throws IOException {
+        try (ExcelSource source = ExcelSource.of(multipartFile)) {
+            return run(source, errorReport, multipartFile.getOriginalFilename());
+        }
+    }
+
+    /**
+     * 导入文件，不关闭文件
+     * @param source
+     * @param errorReport 错误报告的输出流，写入带BOM的UTF-8 CSV，不关闭；为null时只统计错误行数
+     * @return
+     * @throws IOException
+     * @throws IllegalStateException 导入失败
+     * @author ChenDuochuang
+     */
+    public Result run(ExcelSource source, OutputStream errorReport) throws IOException {
+        return run(source, errorReport, source.getFile().getName());
+    }
+
+    private Result run(ExcelSource source, OutputStream errorReport, String fileName) throws IOException {
+        long start = System.currentTimeMillis();
+        CsvWriter report = null;
+        if (errorReport != null) {
+            report = new CsvWriter(errorReport);
+            report.writeRow(ERROR_HEADERS);
+        }
+        Context context = new Context(report);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(workers + persisters, workers + persisters, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "excel-import-" + THREAD_NUMBER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        int[] rowCount = new int[1];
+        try {
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> validate(context));
+            }
+            for (int i = 0; i < persisters; i++) {
+                executor.execute(() -> persist(context));
+            }
+            try {
+                source.read(sheetIndex, row -> {
+                    if (row.getRowNum() >= firstRow && !isBlank(row)) {
+                        context.put(context.rows, row);
+                        rowCount[0]++;
+                    }
+                });
+                for (int i = 0; i < workers; i++) {
+                    context.put(context.rows, END);
+                }
+            } catch (Abort e) {
+                // 其他阶段已失败
+            } catch (Throwable e) {
+                context.fail(e);
+            }
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    // 等待校验和保存结束
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                context.fail(e);
+            }
+        } finally {
+            executor.shutdownNow();
+            try {
+                context.closeReport();
+            } catch (IOException e) {
+                // 不覆盖导入本身的失败
+                if (!context.failure.compareAndSet(null, e)) {
+                    context.failure.get().addSuppressed(e);
+                }
+            }
+        }
+
+        Throwable failure = context.failure.get();
+        if (failure instanceof IOException) {
+            throw (IOException) failure;
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Failed to import excel", failure);
+        }
+        Result result = new Result(rowCount[0], context.successCount.get(), context.errorCount.get(),
+                System.currentTimeMillis() - start);
+        logger.info("导入文件：{}完成，共{}行，成功{}行，失败{}行，耗时{}ms", fileName, result.rowCount,
+                result.successCount, result.errorCount, result.elapsedMillis);
+        return result;
+    }
+
+    /**
+     * 校验阶段：映射、校验并分批，最后一个结束的校验线程通知保存阶段结束
+     */
+    private void validate(Context context) {
+        Batch<T> batch = new Batch<>(batchSize);
+        try {
+            while (true) {
+                Object item = context.take(context.rows);
+                if (item == END) {
+                    break;
+                }
+                RowView row = (RowView) item;
+                T value;
+                try {
+                    value = mapper.map(row);
+                } catch (IllegalArgumentException e) {
+                    context.error(row, e.getMessage());
+                    continue;
+                }
+                String message = validator.validate(value);
+                if (message != null) {
+                    context.error(row, message);
+                    continue;
+                }
+                batch.add(value, row);
+                if (batch.values.size() >= batchSize) {
+                    context.put(context.batches, batch);
+                    batch = new Batch<>(batchSize);
+                }
+            }
+            if (!batch.values.isEmpty()) {
+                context.put(context.batches, batch);
+            }
+            if (context.remainingWorkers.decrementAndGet() == 0) {
+                for (int i = 0; i < persisters; i++) {
+                    context.put(context.batches, END);
+                }
+            }
+        } catch (Abort e) {
+            // 其他阶段已失败
+        } catch (Throwable e) {
+            context.fail(e);
+        }
+    }
+
+    /**
+     * 保存阶段：逐批调用BatchSink
+     */
+    @SuppressWarnings("unchecked")
+    private void persist(Context context) {
+        try {
+            while (true) {
+                Object item = context.take(context.batches);
+                if (item == END) {
+                    break;
+                }
+                Batch<T> batch = (Batch<T>) item;
+                try {
+                    sink.write(batch.values);
+                    context.successCount.addAndGet(batch.values.size());
+                } catch (Exception e) {
+                    logger.warn("保存{}行失败，错误信息：{}", batch.values.size(), e.toString());
+                    String message = e.getMessage() == null ? e.toString() : e.getMessage();
+                    for (RowView row : batch.rows) {
+                        context.error(row, message);
+                    }
+                }
+            }
+        } catch (Abort e) {
+            // 其他阶段已失败
+        } catch (Throwable e) {
+            context.fail(e);
+        }
+    }
+
+    private static boolean isBlank(RowView row) {
+        for (int i = 0; i < row.getCellCount(); i++) {
+            if (!row.isBlank(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 导入结果
+     */
+    public static final class Result {
+
+        private final int rowCount;
+
+        private final int successCount;
+
+        private final int errorCount;
+
+        private final long elapsedMillis;
+
+        private Result(int rowCount, int successCount, int errorCount, long elapsedMillis) {
+            this.rowCount = rowCount;
+            this.successCount = successCount;
+            this.errorCount = errorCount;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        /**
+         * 读取的数据行数，不含跳过的行和空行
+         * @return
+         */
+        public int getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * 保存成功的行数
+         * @return
+         */
+        public int getSuccessCount() {
+            return successCount;
+        }
+
+        /**
+         * 错误行数，即错误报告中的行数
+         * @return
+         */
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Result [rowCount=" + rowCount + ", successCount=" + successCount + ", errorCount=" + errorCount
+                    + ", elapsedMillis=" + elapsedMillis + "]";
+        }
+    }
+
+    /**
+     * 一批对象及其原始行，保存失败时用于错误报告
+     */
+    private static final class Batch<T> {
+
+        private final List<T> values;
+
+        private final List<RowView> rows;
+
+        private Batch(int batchSize) {
+            this.values = new ArrayList<>(batchSize);
+            this.rows = new ArrayList<>(batchSize);
+        }
+
+        private void add(T value, RowView row) {
+            values.add(value);
+            rows.add(row);
+        }
+    }
+
+    /**
+     * 一次导入中各阶段共享的队列、计数和错误报告
+     */
+    private final class Context {
+
+        private final BlockingQueue<Object> rows = new ArrayBlockingQueue<>(queueCapacity);
+
+        private final BlockingQueue<Object> batches = new ArrayBlockingQueue<>(2 * persisters);
+
+        private final AtomicInteger remainingWorkers = new AtomicInteger(workers);
+
+        private final AtomicInteger successCount = new AtomicInteger();
+
+        private final AtomicInteger errorCount = new AtomicInteger();
+
+        /** 第一个导致导入失败的异常 */
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        /** 错误报告，为null时不输出；多个线程写入，使用时同步 */
+        private final CsvWriter report;
+
+        private boolean reportFailed;
+
+        private Context(CsvWriter report) {
+            this.report = report;
+        }
+
+        /**
+         * 放入下一阶段的队列，队列满时等待；导入已失败时中止
+         */
+        private void put(BlockingQueue<Object> queue, Object item) {
+            try {
+                while (!queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    if (failure.get() != null) {
+                        throw Abort.INSTANCE;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                throw Abort.INSTANCE;
+            }
+        }
+
+        /**
+         * 取出上一阶段的数据，队列为空时等待；导入已失败时中止
+         */
+        private Object take(BlockingQueue<Object> queue) {
+            try {
+                Object item;
+                while ((item = queue.poll(100, TimeUnit.MILLISECONDS)) == null) {
+                    if (failure.get() != null) {
+                        throw Abort.INSTANCE;
+                    }
+                }
+                return item;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e);
+                throw Abort.INSTANCE;
+            }
+        }
+
+        private void fail(Throwable e) {
+            failure.compareAndSet(null, e);
+        }
+
+        /**
+         * 记录错误行，写入错误报告失败时导入失败
+         */
+        private void error(RowView row, String message) {
+            errorCount.incrementAndGet();
+            if (report == null) {
+                return;
+            }
+            String[] values = row.toArray();
+            String[] line = new String[values.length + 2];
+            line[0] = String.valueOf(row.getRowNum() + 1);
+            line[1] = message;
+            System.arraycopy(values, 0, line, 2, values.length);
+            synchronized (report) {
+                try {
+                    report.writeRow(line);
+                } catch (IOException e) {
+                    reportFailed = true;
+                    fail(e);
+                    throw Abort.INSTANCE;
+                }
+            }
+        }
+
+        private void closeReport() throws IOException {
+            if (report == null) {
+                return;
+            }
+            synchronized (report) {
+                if (!reportFailed) {
+                    report.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * 其他阶段失败时中止当前阶段，不需要堆栈
+     */
+    private static final class Abort extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final Abort INSTANCE = new Abort();
+
+        private Abort() {
+            super("Import aborted", null, false, false);
+        }
+    }
+}
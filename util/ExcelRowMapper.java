@@ -0,0 +1,485 @@
+package com.chen.my_project.excel;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.text.ParseException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.chen.my_project.util.DateTimeCodec;
+
+/**
+ * 把Excel的行映射为对象
+ *
+ * <pre>
+ * 按类上带@ExcelColumn注解的字段生成绑定计划（列号、类型转换和字段的MethodHandle），每个类只生成一次并缓存，
+ * 逐行映射时不再使用反射。读取单元格时不修改单元格类型：数值、日期直接读取，文本通过DataFormatter获取显示值。
+ * 既可以映射Workbook中的Row，也可以映射ExcelStreamReader流式读取的RowView；
+ * RowView中的数值单元格按原始数值转换，与映射Row的结果一致，不解析显示值（如 4/5/19、12.00）。
+ * 目标类需要有无参构造方法，映射器可在多线程间共享。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelRowMapper<T> {
+
+    /** 日志 */
+    private static final Logger logger = LogManager.getLogger(ExcelRowMapper.class);
+
+    /** 每个类的映射器 */
+    private static final ClassValue<ExcelRowMapper<?>> MAPPERS = new ClassValue<ExcelRowMapper<?>>() {
+        @Override
+        protected ExcelRowMapper<?> computeValue(Class<?> type) {
+            return new ExcelRowMapper<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    /** 无参构造方法，类型为()Object */
+    private final MethodHandle constructor;
+
+    /** 按列号升序 */
+    private final Binding[] bindings;
+
+    private ExcelRowMapper(Class<T> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            java.lang.reflect.Constructor<T> ctor = type.getDeclaredConstructor();
+            ctor.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("No accessible no-arg constructor: " + type.getName(), e);
+        }
+
+        List<Binding> list = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                ExcelColumn column = field.getAnnotation(ExcelColumn.class);
+                if (column == null) {
+                    continue;
+                }
+                if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())) {
+                    throw new IllegalArgumentException("@ExcelColumn field must not be static or final: " + field);
+                }
+                field.setAccessible(true);
+                try {
+                    MethodHandle setter = lookup.unreflectSetter(field)
+                            .asType(MethodType.methodType(void.class, Object.class, Object.class));
+                    list.add(new Binding(field.getName(), column, ValueType.of(field), setter));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalArgumentException("Inaccessible field: " + field, e);
+                }
+            }
+        }
+        list.sort((a, b) -> Integer.compare(a.column, b.column));
+        this.bindings = list.toArray(new Binding[0]);
+    }
+
+    /**
+     * 获取类的映射器，每个类只生成一次绑定计划
+     * @param type 目标类，字段上使用@ExcelColumn标注列号
+     * @return
+     * @author ChenDuochuang
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelRowMapper<T> of(Class<T> type) {
+        return (ExcelRowMapper<T>) MAPPERS.get(type);
+    }
+
+    /**
+     * 映射Workbook中的一行
+     * @param row
+     * @return
+     * @author ChenDuochuang
+     */
+    public T map(Row row) {
+        T target = newInstance();
+        for (Binding binding : bindings) {
+            Cell cell = row.getCell(binding.column);
+            Object value;
+            try {
+                value = cell == null ? null : binding.valueType.fromCell(cell, binding.pattern);
+            } catch (RuntimeException | ParseException e) {
+                throw illegalValue(row.getRowNum(), binding, ExcelUtil.formatCellValue(cell), e);
+            }
+            set(target, binding, value, row.getRowNum());
+        }
+        return target;
+    }
+
+    /**
+     * 映射流式读取的一行
+     * @param row
+     * @return
+     * @author ChenDuochuang
+     */
+    public T map(RowView row) {
+        T target = newInstance();
+        for (Binding binding : bindings) {
+            String text = row.getString(binding.column);
+            Object value;
+            try {
+                if (text == null || text.isEmpty()) {
+                    value = null;
+                } else if (binding.valueType.numeric && row.isNumber(binding.column)) {
+                    value = binding.valueType.fromNumber(row.getNumber(binding.column));
+                } else {
+                    value = binding.valueType.fromText(text, binding.pattern);
+                }
+            } catch (RuntimeException | ParseException e) {
+                throw illegalValue(row.getRowNum(), binding, text, e);
+            }
+            set(target, binding, value, row.getRowNum());
+        }
+        return target;
+    }
+
+    /**
+     * 映射sheet中的行
+     * @param sheet
+     * @param firstRow 第一个数据行的行号，之前的行（如表头）跳过
+     * @return 对象，跳过空行
+     * @author ChenDuochuang
+     */
+    public List<T> mapSheet(Sheet sheet, int firstRow) {
+        List<T> result = new ArrayList<>();
+        for (int i = firstRow; i <= sheet.getLastRowNum(); i++) {
+            Row row = sheet.getRow(i);
+            if (row != null) {
+                result.add(map(row));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 流式读取上传文件的第一个sheet并逐行映射，结束后记录每秒映射的行数
+     * @param multipartFile
+     * @param firstRow 第一个数据行的行号，之前的行（如表头）跳过
+     * @param consumer 对象回调
+     * @return 映射的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public int read(MultipartFile multipartFile, int firstRow, Consumer<? super T> consumer) throws IOException {
+        long start = System.nanoTime();
+        int[] count = new int[1];
+        ExcelStreamReader.read(multipartFile, row -> {
+            if (row.getRowNum() >= firstRow) {
+                consumer.accept(map(row));
+                count[0]++;
+            }
+        });
+        logThroughput(multipartFile.getOriginalFilename(), count[0], System.nanoTime() - start);
+        return count[0];
+    }
+
+    private void logThroughput(String fileName, int rows, long nanos) {
+        long millis = nanos / 1000000;
+        long rowsPerSecond = nanos == 0 ? 0 : (long) (rows * 1e9 / nanos);
+        logger.info("文件：{}映射为{}，共{}行，耗时{}ms，{}行/秒", fileName, type.getSimpleName(), rows, millis,
+                rowsPerSecond);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newInstance() {
+        try {
+            return (T) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create " + type.getName(), e);
+        }
+    }
+
+    private static void set(Object target, Binding binding, Object value, int rowNum) {
+        if (value == null) {
+            if (binding.required) {
+                throw new IllegalArgumentException("Missing value at row " + (rowNum + 1) + " column "
+                        + (binding.column + 1) + " (" + binding.name + ")");
+            }
+            // 基本类型保留默认值
+            return;
+        }
+        try {
+            binding.setter.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to set " + binding.name, e);
+        }
+    }
+
+    private static IllegalArgumentException illegalValue(int rowNum, Binding binding, String text, Exception e) {
+        return new IllegalArgumentException("Illegal value at row " + (rowNum + 1) + " column " + (binding.column + 1)
+                + " (" + binding.name + "): " + text, e);
+    }
+
+    /**
+     * 一列的绑定
+     */
+    private static final class Binding {
+
+        private final String name;
+
+        private final int column;
+
+        private final String pattern;
+
+        private final boolean required;
+
+        private final ValueType valueType;
+
+        /** 字段的setter，类型为(Object, Object)void */
+        private final MethodHandle setter;
+
+        private Binding(String name, ExcelColumn column, ValueType valueType, MethodHandle setter) {
+            if (column.index() < 0) {
+                throw new IllegalArgumentException("Illegal column index of " + name + ": " + column.index());
+            }
+            this.name = name;
+            this.column = column.index();
+            this.pattern = column.pattern().isEmpty() ? valueType.defaultPattern : column.pattern();
+            this.required = column.required();
+            this.valueType = valueType;
+            this.setter = setter;
+        }
+    }
+
+    /**
+     * 字段类型及其转换
+     */
+    private enum ValueType {
+
+        STRING(null, false) {
+            @Override
+            Object fromCell(Cell cell, String pattern) throws ParseException {
+                String text = ExcelUtil.formatCellValue(cell);
+                return text.isEmpty() ? null : text;
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                return text;
+            }
+        },
+        INT(null, true) {
+            @Override
+            Object fromNumber(double value) {
+                return Integer.valueOf(Math.toIntExact(integral(value)));
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                return Integer.valueOf(stripGrouping(text));
+            }
+        },
+        LONG(null, true) {
+            @Override
+            Object fromNumber(double value) {
+                return Long.valueOf(integral(value));
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                return Long.valueOf(stripGrouping(text));
+            }
+        },
+        DOUBLE(null, true) {
+            @Override
+            Object fromNumber(double value) {
+                return Double.valueOf(value);
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                return Double.valueOf(stripGrouping(text));
+            }
+        },
+        BIG_DECIMAL(null, true) {
+            @Override
+            Object fromNumber(double value) {
+                // 按double的最短十进制表示转换，避免二进制误差
+                return BigDecimal.valueOf(value);
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                return new BigDecimal(stripGrouping(text));
+            }
+        },
+        BOOLEAN(null, false) {
+            @Override
+            Object fromCell(Cell cell, String pattern) throws ParseException {
+                CellType cellType = resultType(cell);
+                return cellType == CellType.BOOLEAN ? Boolean.valueOf(cell.getBooleanCellValue())
+                        : fromCellText(cell, pattern);
+            }
+
+            @Override
+            Object fromText(String text, String pattern) {
+                if ("true".equalsIgnoreCase(text) || "1".equals(text)) {
+                    return Boolean.TRUE;
+                }
+                if ("false".equalsIgnoreCase(text) || "0".equals(text)) {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException("Not a boolean: " + text);
+            }
+        },
+        DATE(DateTimeCodec.DATETIME_PATTERN, true) {
+            @Override
+            Object fromNumber(double value) {
+                return DateUtil.getJavaDate(value);
+            }
+
+            @Override
+            Object fromText(String text, String pattern) throws ParseException {
+                return new Date(DateTimeCodec.DATETIME_PATTERN.equals(pattern) ? DateTimeCodec.parseDateTime(text)
+                        : DateTimeCodec.parse(text, pattern));
+            }
+        },
+        LOCAL_DATE(DateTimeCodec.DATE_PATTERN, true) {
+            @Override
+            Object fromNumber(double value) {
+                return toLocalDateTime(value).toLocalDate();
+            }
+
+            @Override
+            Object fromText(String text, String pattern) throws ParseException {
+                if (DateTimeCodec.DATE_PATTERN.equals(pattern)) {
+                    return LocalDate.ofEpochDay(DateTimeCodec.parseEpochDay(text));
+                }
+                return LocalDate.parse(text, DateTimeCodec.formatter(pattern));
+            }
+        },
+        LOCAL_DATE_TIME(DateTimeCodec.DATETIME_PATTERN, true) {
+            @Override
+            Object fromNumber(double value) {
+                return toLocalDateTime(value);
+            }
+
+            @Override
+            Object fromText(String text, String pattern) throws ParseException {
+                return LocalDateTime.parse(text, DateTimeCodec.formatter(pattern));
+            }
+        };
+
+        /** 默认的日期格式 */
+        private final String defaultPattern;
+
+        /** 是否从数值单元格的原始数值转换 */
+        private final boolean numeric;
+
+        ValueType(String defaultPattern, boolean numeric) {
+            this.defaultPattern = defaultPattern;
+            this.numeric = numeric;
+        }
+
+        /**
+         * 从单元格读取，空单元格返回null；数值单元格（含日期）按原始数值转换，其他按显示值转换
+         */
+        Object fromCell(Cell cell, String pattern) throws ParseException {
+            Double value = numeric(cell);
+            return value == null ? fromCellText(cell, pattern) : fromNumber(value);
+        }
+
+        /**
+         * 从原始数值转换，日期为Excel的日期序列号，只有numeric为true的类型支持
+         */
+        Object fromNumber(double value) {
+            throw new UnsupportedOperationException(name());
+        }
+
+        /**
+         * 从显示值转换，text不为空
+         */
+        abstract Object fromText(String text, String pattern) throws ParseException;
+
+        static ValueType of(Field field) {
+            Class<?> type = field.getType();
+            if (type == String.class) {
+                return STRING;
+            } else if (type == int.class || type == Integer.class) {
+                return INT;
+            } else if (type == long.class || type == Long.class) {
+                return LONG;
+            } else if (type == double.class || type == Double.class) {
+                return DOUBLE;
+            } else if (type == BigDecimal.class) {
+                return BIG_DECIMAL;
+            } else if (type == boolean.class || type == Boolean.class) {
+                return BOOLEAN;
+            } else if (type == Date.class) {
+                return DATE;
+            } else if (type == LocalDate.class) {
+                return LOCAL_DATE;
+            } else if (type == LocalDateTime.class) {
+                return LOCAL_DATE_TIME;
+            }
+            throw new IllegalArgumentException("Unsupported field type: " + field);
+        }
+
+        /**
+         * 单元格不是数值时按显示值转换
+         */
+        Object fromCellText(Cell cell, String pattern) throws ParseException {
+            String text = ExcelUtil.formatCellValue(cell).trim();
+            return text.isEmpty() ? null : fromText(text, pattern);
+        }
+
+        /**
+         * 数值单元格（含结果为数值的公式）的值，其他类型返回null
+         */
+        static Double numeric(Cell cell) {
+            return resultType(cell) == CellType.NUMERIC ? Double.valueOf(cell.getNumericCellValue()) : null;
+        }
+
+        /**
+         * 单元格类型，公式返回缓存结果的类型
+         */
+        static CellType resultType(Cell cell) {
+            CellType cellType = cell.getCellTypeEnum();
+            return cellType == CellType.FORMULA ? cell.getCachedFormulaResultTypeEnum() : cellType;
+        }
+
+        static long integral(double value) {
+            if (value != Math.rint(value) || Math.abs(value) >= 0x1p63) {
+                throw new IllegalArgumentException("Not an integer: " + value);
+            }
+            return (long) value;
+        }
+
+        static String stripGrouping(String text) {
+            return text.indexOf(',') < 0 ? text.trim() : text.replace(",", "").trim();
+        }
+
+        static LocalDateTime toLocalDateTime(double value) {
+            return Instant.ofEpochMilli(DateUtil.getJavaDate(value).getTime()).atZone(ZoneId.systemDefault())
+                    .toLocalDateTime();
+        }
+    }
+}
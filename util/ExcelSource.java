@@ -0,0 +1,215 @@
+package com.chen.my_project.excel;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.chen.my_project.excel.ExcelStreamReader.RowHandler;
+
+/**
+ * 基于磁盘文件的Excel数据源
+ *
+ * <pre>
+ * 上传文件先通过getInputStream逐块复制为临时文件，不经过堆内存，也不移动上传文件，调用方之后仍可以读取上传文件，
+ * 之后.xlsx通过OPCPackage.open(File)以ZipFile随机读取各部分，.xls通过POIFSFileSystem(File)以FileChannel读取，
+ * 不会像InputStream方式那样先把整个文件缓存在堆中，多个大文件同时上传时堆内存占用不会成倍增加。
+ * 格式按文件头的魔数判断，与文件后缀无关。
+ * 使用完后必须调用close，上传文件的临时文件在close时删除；openWorkbook返回的Workbook需要先关闭。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelSource implements Closeable {
+
+    /** 判断格式读取的文件头长度 */
+    private static final int MAGIC_LENGTH = 8;
+
+    private final File file;
+
+    /** 是否为上传时创建的临时文件，关闭时删除 */
+    private final boolean temporary;
+
+    private final boolean xlsx;
+
+    private ExcelSource(File file, boolean temporary, boolean xlsx) {
+        this.file = file;
+        this.temporary = temporary;
+        this.xlsx = xlsx;
+    }
+
+    /**
+     * 把上传文件复制为临时文件
+     *
+     * <pre>
+     * 不使用transferTo：Spring已缓存到磁盘的上传文件会被移动，之后调用方无法再读取上传文件。
+     * </pre>
+     * @param multipartFile 读取后仍可使用
+     * @return
+     * @throws IOException 保存失败或不是Excel文件
+     * @author ChenDuochuang
+     */
+    public static ExcelSource of(MultipartFile multipartFile) throws IOException {
+        File file = File.createTempFile("excel-upload-", ".tmp");
+        try {
+            try (InputStream in = multipartFile.getInputStream()) {
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new ExcelSource(file, true, isXlsx(file, multipartFile.getOriginalFilename()));
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * 读取已有的文件，关闭时不删除
+     * @param file
+     * @return
+     * @throws IOException 读取失败或不是Excel文件
+     * @author ChenDuochuang
+     */
+    public static ExcelSource of(File file) throws IOException {
+        return new ExcelSource(file, false, isXlsx(file, file.getName()));
+    }
+
+    /**
+     * true：.xlsx格式，false：.xls格式
+     * @return
+     */
+    public boolean isXlsx() {
+        return xlsx;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 流式读取指定sheet
+     * @param sheetIndex sheet序号，从0开始
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public int read(int sheetIndex, RowHandler handler) throws IOException {
+        if (xlsx) {
+            OPCPackage pkg = openPackage();
+            try {
+                return ExcelStreamReader.read(pkg, sheetIndex, handler);
+            } finally {
+                // 只读打开，不保存修改
+                pkg.revert();
+            }
+        }
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            return ExcelStreamReader.read(fs, sheetIndex, handler);
+        }
+    }
+
+    /**
+     * 读取所有sheet，.xlsx并行解析，.xls按顺序解析，见ExcelStreamReader.readAllSheets
+     * @param parallelism 解析线程数
+     * @param handler 行回调，在调用线程上按sheet顺序、行顺序回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public int readAllSheets(int parallelism, RowHandler handler) throws IOException {
+        if (xlsx) {
+            OPCPackage pkg = openPackage();
+            try {
+                return ExcelStreamReader.readAllSheets(pkg, parallelism, ExcelStreamReader.DEFAULT_QUEUE_CAPACITY,
+                        handler);
+            } finally {
+                pkg.revert();
+            }
+        }
+        // .xls的所有sheet在同一个记录流中，无法并行
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            return ExcelStreamReader.read(fs, ExcelStreamReader.ALL_SHEETS, handler);
+        }
+    }
+
+    /**
+     * 打开为Workbook
+     *
+     * <pre>
+     * .xlsx的Workbook在关闭前一直读取文件，必须在关闭ExcelSource之前关闭；
+     * .xls的内容全部读入Workbook，返回时文件已关闭。
+     * </pre>
+     * @return
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public Workbook openWorkbook() throws IOException {
+        if (xlsx) {
+            OPCPackage pkg = openPackage();
+            try {
+                return new XSSFWorkbook(pkg);
+            } catch (IOException | RuntimeException e) {
+                pkg.revert();
+                throw e;
+            }
+        }
+        try (POIFSFileSystem fs = new POIFSFileSystem(file, true)) {
+            // 不保留文件节点，Workbook不再引用文件
+            return new HSSFWorkbook(fs.getRoot(), false);
+        }
+    }
+
+    /**
+     * 删除上传时创建的临时文件
+     */
+    @Override
+    public void close() throws IOException {
+        if (temporary) {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    private OPCPackage openPackage() throws IOException {
+        try {
+            return OPCPackage.open(file, PackageAccess.READ);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Failed to read xlsx", e);
+        }
+    }
+
+    /**
+     * 按文件头判断格式
+     */
+    private static boolean isXlsx(File file, String fileName) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(MAGIC_LENGTH);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // 读满文件头或到文件末尾
+            }
+        }
+        FileMagic magic = FileMagic.valueOf(header.array());
+        if (magic == FileMagic.OOXML) {
+            return true;
+        }
+        if (magic == FileMagic.OLE2) {
+            return false;
+        }
+        throw new IOException("Unsupported excel file: " + fileName);
+    }
+}
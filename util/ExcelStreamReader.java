@@ -0,0 +1,842 @@
+package com.chen.my_project.excel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFEventFactory;
+import org.apache.poi.hssf.eventusermodel.HSSFListener;
+import org.apache.poi.hssf.eventusermodel.HSSFRequest;
+import org.apache.poi.hssf.eventusermodel.MissingRecordAwareHSSFListener;
+import org.apache.poi.hssf.eventusermodel.dummyrecord.LastCellOfRowDummyRecord;
+import org.apache.poi.hssf.record.BOFRecord;
+import org.apache.poi.hssf.record.BoolErrRecord;
+import org.apache.poi.hssf.record.CellValueRecordInterface;
+import org.apache.poi.hssf.record.EOFRecord;
+import org.apache.poi.hssf.record.FormulaRecord;
+import org.apache.poi.hssf.record.LabelRecord;
+import org.apache.poi.hssf.record.LabelSSTRecord;
+import org.apache.poi.hssf.record.NumberRecord;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.record.SSTRecord;
+import org.apache.poi.hssf.record.StringRecord;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.poifs.filesystem.POIFSFileSystem;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.springframework.web.multipart.MultipartFile;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+/**
+ * 流式读取Excel
+ *
+ * <pre>
+ * .xlsx使用XSSFReader + SAX逐行解析sheet的XML，.xls使用HSSF事件模型逐条处理记录，
+ * 都不会创建Workbook对象，内存占用与行数无关，适合几十万行的大文件导入。
+ * 读取的行通过回调逐行交给调用方，或者通过有界队列以Stream<RowView>的形式提供。
+ * 多sheet的.xlsx可以使用readAllSheets，只打开一次文件，由多个线程分别解析各sheet。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelStreamReader {
+
+    /** Stream默认的队列长度 */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** 读取.xls的所有sheet时的sheet序号 */
+    static final int ALL_SHEETS = -1;
+
+    /** 并行解析线程的编号 */
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    /**
+     * 行回调
+     */
+    public interface RowHandler {
+
+        /**
+         * @param row 一行数据
+         */
+        void handle(RowView row);
+    }
+
+    private ExcelStreamReader() {
+    }
+
+    /**
+     * 流式读取上传文件的第一个sheet，上传文件先保存为临时文件，按文件头判断格式
+     * @param multipartFile
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static int read(MultipartFile multipartFile, RowHandler handler) throws IOException {
+        try (ExcelSource source = ExcelSource.of(multipartFile)) {
+            return source.read(0, handler);
+        }
+    }
+
+    /**
+     * 流式读取指定sheet，不关闭输入流
+     * @param in 输入流
+     * @param xlsx true：.xlsx格式，false：.xls格式
+     * @param sheetIndex sheet序号，从0开始
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static int read(InputStream in, boolean xlsx, int sheetIndex, RowHandler handler) throws IOException {
+        checkSheetIndex(sheetIndex);
+        if (xlsx) {
+            OPCPackage pkg = openPackage(in);
+            try {
+                return read(pkg, sheetIndex, handler);
+            } finally {
+                // 只读打开，不保存修改
+                pkg.revert();
+            }
+        }
+        try (POIFSFileSystem fs = new POIFSFileSystem(in)) {
+            return read(fs, sheetIndex, handler);
+        }
+    }
+
+    /**
+     * 流式读取已打开的.xlsx中的指定sheet，不关闭文件
+     * @param pkg
+     * @param sheetIndex sheet序号，从0开始
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    static int read(OPCPackage pkg, int sheetIndex, RowHandler handler) throws IOException {
+        checkSheetIndex(sheetIndex);
+        RowCollector collector = new RowCollector(sheetIndex, handler);
+        try {
+            readXlsx(pkg, sheetIndex, collector);
+        } catch (StopReading e) {
+            // 回调要求停止
+        }
+        return collector.rowCount;
+    }
+
+    /**
+     * 流式读取已打开的.xls中的指定sheet，不关闭文件
+     * @param fs
+     * @param sheetIndex sheet序号，从0开始；为ALL_SHEETS时读取所有sheet
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    static int read(POIFSFileSystem fs, int sheetIndex, RowHandler handler) throws IOException {
+        if (sheetIndex != ALL_SHEETS) {
+            checkSheetIndex(sheetIndex);
+        }
+        RowCollector collector = new RowCollector(Math.max(sheetIndex, 0), handler);
+        try {
+            readXls(fs, sheetIndex, collector);
+        } catch (StopReading e) {
+            // 回调要求停止或目标sheet已读完
+        }
+        return collector.rowCount;
+    }
+
+    /**
+     * 以Stream形式流式读取上传文件的第一个sheet
+     * @param multipartFile
+     * @return 使用完后必须关闭
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static Stream<RowView> stream(MultipartFile multipartFile) throws IOException {
+        ExcelSource source = ExcelSource.of(multipartFile);
+        return stream(queue -> {
+            try (ExcelSource input = source) {
+                input.read(0, queue::put);
+            }
+        }, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 以Stream形式流式读取指定sheet
+     *
+     * <pre>
+     * 由一个后台线程解析文件并把行放入有界队列，队列满时解析线程等待，因此内存占用不超过队列长度的行数。
+     * 返回的Stream使用完后必须关闭（建议使用try-with-resources），未读完就关闭时解析线程会停止并关闭输入流。
+     * 解析出错时，在读取Stream的线程上抛出IllegalStateException。
+     * </pre>
+     * @param in 输入流，读取结束后关闭
+     * @param xlsx true：.xlsx格式，false：.xls格式
+     * @param sheetIndex sheet序号，从0开始
+     * @param queueCapacity 队列长度
+     * @return
+     * @author ChenDuochuang
+     */
+    public static Stream<RowView> stream(InputStream in, boolean xlsx, int sheetIndex, int queueCapacity) {
+        return stream(queue -> {
+            try (InputStream input = in) {
+                read(input, xlsx, sheetIndex, queue::put);
+            }
+        }, queueCapacity);
+    }
+
+    private static Stream<RowView> stream(Producer producer, int queueCapacity) {
+        RowQueue queue = new RowQueue(queueCapacity);
+        Thread thread = new Thread(() -> {
+            try {
+                producer.produce(queue);
+                queue.finish(null);
+            } catch (Throwable e) {
+                queue.finish(e);
+            }
+        }, "excel-stream-reader");
+        thread.setDaemon(true);
+        thread.start();
+
+        Spliterator<RowView> spliterator = Spliterators.spliteratorUnknownSize(queue,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(queue::cancel);
+    }
+
+    /**
+     * 读取上传文件的所有sheet，.xlsx并行解析，.xls按顺序解析
+     * @param multipartFile
+     * @param parallelism 解析线程数
+     * @param handler 行回调，在调用线程上按sheet顺序、行顺序回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static int readAllSheets(MultipartFile multipartFile, int parallelism, RowHandler handler)
+            throws IOException {
+        try (ExcelSource source = ExcelSource.of(multipartFile)) {
+            return source.readAllSheets(parallelism, handler);
+        }
+    }
+
+    /**
+     * 并行读取.xlsx的所有sheet，不关闭输入流
+     *
+     * <pre>
+     * 文件只打开一次，共享字符串表只加载一次，每个sheet的XML由线程池中的一个线程解析，放入该sheet的有界队列。
+     * 调用线程按sheet顺序依次取出各队列中的行交给回调，因此回调的顺序与顺序读取一致，回调不需要线程安全。
+     * 解析较快的sheet在队列满时等待，内存中最多保留 parallelism * queueCapacity 行。
+     * 回调抛出异常时其余解析线程停止，异常原样抛出；解析出错时抛出IllegalStateException。
+     * </pre>
+     * @param in 输入流
+     * @param parallelism 解析线程数
+     * @param queueCapacity 每个sheet的队列长度
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static int readAllSheets(InputStream in, int parallelism, int queueCapacity, RowHandler handler)
+            throws IOException {
+        OPCPackage pkg = openPackage(in);
+        try {
+            return readAllSheets(pkg, parallelism, queueCapacity, handler);
+        } finally {
+            // 只读打开，不保存修改
+            pkg.revert();
+        }
+    }
+
+    /**
+     * 并行读取已打开的.xlsx的所有sheet，不关闭文件，返回前等待所有解析线程结束
+     * @param pkg
+     * @param parallelism 解析线程数
+     * @param queueCapacity 每个sheet的队列长度
+     * @param handler 行回调
+     * @return 读取的行数
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    static int readAllSheets(OPCPackage pkg, int parallelism, int queueCapacity, RowHandler handler)
+            throws IOException {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Illegal parallelism: " + parallelism);
+        }
+        ThreadPoolExecutor executor = null;
+        List<RowQueue> queues = new ArrayList<>();
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            List<PackagePart> parts = new ArrayList<>();
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (sheets.hasNext()) {
+                sheets.next().close();
+                parts.add(sheets.getSheetPart());
+            }
+
+            // 任务按sheet顺序排队，正在读取的sheet一定已经开始解析，不会因线程被后面的sheet占满而死锁
+            int threads = Math.min(parallelism, Math.max(parts.size(), 1));
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                    task -> {
+                        Thread thread = new Thread(task, "excel-sheet-reader-" + THREAD_NUMBER.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            for (int i = 0; i < parts.size(); i++) {
+                RowQueue queue = new RowQueue(queueCapacity);
+                queues.add(queue);
+                // StylesTable非线程安全，每个sheet单独加载
+                executor.execute(new SheetTask(parts.get(i), reader.getStylesTable(), strings,
+                        new RowCollector(i, queue::put), queue));
+            }
+
+            int rowCount = 0;
+            for (RowQueue queue : queues) {
+                while (queue.hasNext()) {
+                    handler.handle(queue.next());
+                    rowCount++;
+                }
+            }
+            return rowCount;
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("Failed to read xlsx", e);
+        } finally {
+            queues.forEach(RowQueue::cancel);
+            if (executor != null) {
+                shutdown(executor);
+            }
+        }
+    }
+
+    private static void checkSheetIndex(int sheetIndex) {
+        if (sheetIndex < 0) {
+            throw new IllegalArgumentException("Illegal sheet index: " + sheetIndex);
+        }
+    }
+
+    private static OPCPackage openPackage(InputStream in) throws IOException {
+        try {
+            return OPCPackage.open(in);
+        } catch (OpenXML4JException e) {
+            throw new IOException("Failed to read xlsx", e);
+        }
+    }
+
+    private static void readXlsx(OPCPackage pkg, int sheetIndex, RowCollector collector) throws IOException {
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+            XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+            for (int i = 0; sheets.hasNext(); i++) {
+                try (InputStream sheet = sheets.next()) {
+                    if (i == sheetIndex) {
+                        parseSheet(sheet, reader.getStylesTable(), strings, collector);
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("Sheet index out of range: " + sheetIndex);
+        } catch (OpenXML4JException | SAXException e) {
+            throw new IOException("Failed to read xlsx", e);
+        }
+    }
+
+    private static void parseSheet(InputStream sheet, StylesTable styles, ReadOnlySharedStringsTable strings,
+            RowCollector collector) throws IOException, SAXException {
+        try {
+            XMLReader parser = SAXHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, collector,
+                    new NumberRecordingFormatter(collector), false));
+            parser.parse(new InputSource(sheet));
+        } catch (ParserConfigurationException e) {
+            throw new IOException("Failed to create xml parser", e);
+        }
+    }
+
+    /**
+     * 停止线程池并等待解析线程结束，之后才能关闭文件
+     */
+    private static void shutdown(ThreadPoolExecutor executor) {
+        executor.shutdownNow();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void readXls(POIFSFileSystem fs, int sheetIndex, RowCollector collector) throws IOException {
+        XlsListener listener = new XlsListener(sheetIndex, collector);
+        HSSFRequest request = new HSSFRequest();
+        request.addListenerForAllRecords(new MissingRecordAwareHSSFListener(listener.formatListener));
+        new HSSFEventFactory().processWorkbookEvents(request, fs);
+        if (sheetIndex != ALL_SHEETS && listener.sheet < sheetIndex) {
+            throw new IllegalArgumentException("Sheet index out of range: " + sheetIndex);
+        }
+    }
+
+    /**
+     * 列名（A、B...AA）转换为列号，从0开始
+     */
+    private static int columnOf(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    /**
+     * 与DataFormatter的布尔值格式一致
+     */
+    private static String formatBoolean(boolean value) {
+        return value ? "TRUE" : "FALSE";
+    }
+
+    /**
+     * Stream的解析任务，在后台线程上把行放入队列
+     */
+    private interface Producer {
+
+        void produce(RowQueue queue) throws IOException;
+    }
+
+    /**
+     * 中止解析，不记录堆栈
+     */
+    private static final class StopReading extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final StopReading INSTANCE = new StopReading();
+
+        private StopReading() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * 收集一行的单元格，行结束时交给回调
+     */
+    private static final class RowCollector implements SheetContentsHandler {
+
+        /** 读取所有.xls sheet时随当前sheet变化 */
+        private int sheetIndex;
+
+        private final RowHandler handler;
+
+        /** 当前行各列的值，复用 */
+        private String[] values = new String[16];
+
+        /** 当前行各列的原始数值，不是数值单元格时为NaN，复用 */
+        private double[] numbers = newNumbers(16);
+
+        /** 当前行各列是否为日期格式，复用 */
+        private boolean[] dates = new boolean[16];
+
+        /** 当前行是否有数值单元格、日期单元格 */
+        private boolean hasNumber;
+        private boolean hasDate;
+
+        /** .xlsx的下一个单元格的原始数值，由NumberRecordingFormatter在格式化时记录 */
+        private double pendingNumber = Double.NaN;
+        private boolean pendingDate;
+
+        private int lastColumn = -1;
+
+        private int rowCount;
+
+        private RowCollector(int sheetIndex, RowHandler handler) {
+            this.sheetIndex = sheetIndex;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            lastColumn = -1;
+            pendingNumber = Double.NaN;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference == null ? lastColumn + 1 : columnOf(cellReference);
+            cell(column, formattedValue, pendingNumber, pendingDate);
+            pendingNumber = Double.NaN;
+        }
+
+        private void cell(int column, String value) {
+            cell(column, value, Double.NaN, false);
+        }
+
+        /**
+         * @param number 原始数值，不是数值单元格时为NaN
+         * @param date 是否为日期格式
+         */
+        private void cell(int column, String value, double number, boolean date) {
+            if (column >= values.length) {
+                int length = Math.max(column + 1, values.length << 1);
+                values = Arrays.copyOf(values, length);
+                int oldLength = numbers.length;
+                numbers = Arrays.copyOf(numbers, length);
+                Arrays.fill(numbers, oldLength, length, Double.NaN);
+                dates = Arrays.copyOf(dates, length);
+            }
+            values[column] = value;
+            if (!Double.isNaN(number)) {
+                numbers[column] = number;
+                hasNumber = true;
+                if (date) {
+                    dates[column] = true;
+                    hasDate = true;
+                }
+            }
+            lastColumn = Math.max(lastColumn, column);
+        }
+
+        /**
+         * 没有值的行（如只有样式的空单元格、自定义行高的空行）不输出也不计数，两种格式一致
+         */
+        @Override
+        public void endRow(int rowNum) {
+            if (lastColumn < 0) {
+                return;
+            }
+            int length = lastColumn + 1;
+            String[] row = Arrays.copyOf(values, length);
+            Arrays.fill(values, 0, length, null);
+            double[] rowNumbers = null;
+            if (hasNumber) {
+                rowNumbers = Arrays.copyOf(numbers, length);
+                Arrays.fill(numbers, 0, length, Double.NaN);
+            }
+            boolean[] rowDates = null;
+            if (hasDate) {
+                rowDates = Arrays.copyOf(dates, length);
+                Arrays.fill(dates, 0, length, false);
+            }
+            hasNumber = false;
+            hasDate = false;
+            lastColumn = -1;
+            rowCount++;
+            handler.handle(new RowView(sheetIndex, rowNum, row, rowNumbers, rowDates));
+        }
+
+        private static double[] newNumbers(int length) {
+            double[] array = new double[length];
+            Arrays.fill(array, Double.NaN);
+            return array;
+        }
+
+        @Override
+        public void headerFooter(String text, boolean isHeader, String tagName) {
+            // 不需要页眉页脚
+        }
+    }
+
+    /**
+     * .xls记录监听，只处理目标sheet（sheetIndex为ALL_SHEETS时为所有sheet）中的单元格记录
+     */
+    private static final class XlsListener implements HSSFListener {
+
+        private final int sheetIndex;
+
+        private final RowCollector collector;
+
+        private final FormatTrackingHSSFListener formatListener;
+
+        private SSTRecord sst;
+
+        /** 当前sheet序号，-1表示workbook全局部分 */
+        private int sheet = -1;
+
+        /** 公式的结果为字符串时，值在随后的StringRecord中 */
+        private int formulaRow = -1;
+        private int formulaColumn;
+
+        private XlsListener(int sheetIndex, RowCollector collector) {
+            this.sheetIndex = sheetIndex;
+            this.collector = collector;
+            this.formatListener = new FormatTrackingHSSFListener(this);
+        }
+
+        @Override
+        public void processRecord(Record record) {
+            if (record instanceof LastCellOfRowDummyRecord) {
+                // 行块边界处的记录getLastColumnNumber()可能为-1，因此由collector按收集到的单元格判断是否为空行
+                if (isTargetSheet()) {
+                    collector.endRow(((LastCellOfRowDummyRecord) record).getRow());
+                }
+                return;
+            }
+            switch (record.getSid()) {
+            case BOFRecord.sid:
+                if (((BOFRecord) record).getType() == BOFRecord.TYPE_WORKSHEET) {
+                    sheet++;
+                    if (sheetIndex == ALL_SHEETS) {
+                        collector.sheetIndex = sheet;
+                    }
+                }
+                break;
+            case EOFRecord.sid:
+                if (sheetIndex != ALL_SHEETS && sheet == sheetIndex) {
+                    // 目标sheet已读完，不再解析后面的sheet
+                    throw StopReading.INSTANCE;
+                }
+                break;
+            case SSTRecord.sid:
+                sst = (SSTRecord) record;
+                break;
+            default:
+                if (isTargetSheet()) {
+                    processCell(record);
+                }
+                break;
+            }
+        }
+
+        private boolean isTargetSheet() {
+            return sheetIndex == ALL_SHEETS ? sheet >= 0 : sheet == sheetIndex;
+        }
+
+        private boolean isDateFormat(CellValueRecordInterface record) {
+            return DateUtil.isADateFormat(formatListener.getFormatIndex(record), formatListener.getFormatString(record));
+        }
+
+        /**
+         * POI 3.17中公式缓存结果的类型只能以int获取，需要用CellType.forInt转换
+         */
+        @SuppressWarnings("deprecation")
+        private void processCell(Record record) {
+            switch (record.getSid()) {
+            case LabelSSTRecord.sid:
+                LabelSSTRecord label = (LabelSSTRecord) record;
+                collector.cell(label.getColumn(), sst.getString(label.getSSTIndex()).getString());
+                break;
+            case LabelRecord.sid:
+                LabelRecord oldLabel = (LabelRecord) record;
+                collector.cell(oldLabel.getColumn(), oldLabel.getValue());
+                break;
+            case NumberRecord.sid:
+                NumberRecord number = (NumberRecord) record;
+                collector.cell(number.getColumn(), formatListener.formatNumberDateCell(number), number.getValue(),
+                        isDateFormat(number));
+                break;
+            case BoolErrRecord.sid:
+                BoolErrRecord boolErr = (BoolErrRecord) record;
+                collector.cell(boolErr.getColumn(), boolErr.isBoolean() ? formatBoolean(boolErr.getBooleanValue())
+                        : FormulaError.forInt(boolErr.getErrorValue()).getString());
+                break;
+            case FormulaRecord.sid:
+                FormulaRecord formula = (FormulaRecord) record;
+                if (formula.hasCachedResultString()) {
+                    formulaRow = formula.getRow();
+                    formulaColumn = formula.getColumn();
+                } else if (CellType.forInt(formula.getCachedResultType()) == CellType.BOOLEAN) {
+                    collector.cell(formula.getColumn(), formatBoolean(formula.getCachedBooleanValue()));
+                } else if (CellType.forInt(formula.getCachedResultType()) == CellType.ERROR) {
+                    collector.cell(formula.getColumn(), FormulaError.forInt(formula.getCachedErrorValue()).getString());
+                } else {
+                    collector.cell(formula.getColumn(), formatListener.formatNumberDateCell(formula),
+                            formula.getValue(), isDateFormat(formula));
+                }
+                break;
+            case StringRecord.sid:
+                if (formulaRow >= 0) {
+                    collector.cell(formulaColumn, ((StringRecord) record).getString());
+                    formulaRow = -1;
+                }
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    /**
+     * .xlsx的数值单元格由XSSFSheetXMLHandler按格式转换为显示值后才回调，
+     * 格式化时记录原始数值和是否为日期格式，随后的cell回调一起放入当前行
+     */
+    private static final class NumberRecordingFormatter extends DataFormatter {
+
+        private final RowCollector collector;
+
+        private NumberRecordingFormatter(RowCollector collector) {
+            this.collector = collector;
+        }
+
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString) {
+            collector.pendingNumber = value;
+            collector.pendingDate = DateUtil.isADateFormat(formatIndex, formatString);
+            return super.formatRawCellContents(value, formatIndex, formatString);
+        }
+    }
+
+    /**
+     * 并行读取时解析一个sheet的任务
+     */
+    private static final class SheetTask implements Runnable {
+
+        private final PackagePart part;
+
+        private final StylesTable styles;
+
+        private final ReadOnlySharedStringsTable strings;
+
+        private final RowCollector collector;
+
+        private final RowQueue queue;
+
+        private SheetTask(PackagePart part, StylesTable styles, ReadOnlySharedStringsTable strings,
+                RowCollector collector, RowQueue queue) {
+            this.part = part;
+            this.styles = styles;
+            this.strings = strings;
+            this.collector = collector;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            try (InputStream sheet = part.getInputStream()) {
+                parseSheet(sheet, styles, strings, collector);
+                queue.finish(null);
+            } catch (StopReading e) {
+                // 读取已取消
+            } catch (Throwable e) {
+                queue.finish(e);
+            }
+        }
+    }
+
+    /**
+     * 解析线程与读取线程之间的有界队列，同时作为Stream的迭代器
+     */
+    private static final class RowQueue implements Iterator<RowView> {
+
+        /** 解析结束的标记 */
+        private static final Object END = new Object();
+
+        private final BlockingQueue<Object> queue;
+
+        private volatile boolean cancelled;
+
+        private Throwable failure;
+
+        private Object next;
+
+        private RowQueue(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        /**
+         * 解析线程放入一行，队列满时等待；Stream已关闭时中止解析
+         */
+        private void put(RowView row) {
+            try {
+                while (!queue.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    if (cancelled) {
+                        throw StopReading.INSTANCE;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw StopReading.INSTANCE;
+            }
+            if (cancelled) {
+                throw StopReading.INSTANCE;
+            }
+        }
+
+        private void finish(Throwable e) {
+            failure = e;
+            try {
+                while (!cancelled && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    // 等待读取线程取走数据
+                }
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while reading excel", e);
+                }
+            }
+            if (next == END) {
+                // failure在放入END之前写入，通过队列的happens-before关系可见
+                if (failure != null) {
+                    Throwable e = failure;
+                    failure = null;
+                    throw new IllegalStateException("Failed to read excel", e);
+                }
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public RowView next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            RowView row = (RowView) next;
+            next = null;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.chen.my_project.excel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * 基于SXSSFWorkbook的流式Excel（.xlsx）写入
+ *
+ * <pre>
+ * 内存中只保留最近的rowAccessWindowSize行，更早的行写入临时文件（可压缩），
+ * 导出百万行数据时堆内存占用也保持不变。
+ * 写入完成后调用writeTo输出，使用完后必须调用close删除临时文件。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelStreamWriter implements Closeable {
+
+    /** 默认的内存行数 */
+    public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
+    private final SXSSFWorkbook workbook;
+
+    private final Sheet sheet;
+
+    /** 内容单元格样式，所有单元格共用 */
+    private final CellStyle contentCellStyle;
+
+    /** 下一行的行号 */
+    private int nextRow;
+
+    /**
+     * 创建空白工作簿，使用默认的内存行数并压缩临时文件
+     * @author ChenDuochuang
+     */
+    public ExcelStreamWriter() {
+        this(null, DEFAULT_ROW_ACCESS_WINDOW_SIZE, true);
+    }
+
+    /**
+     * 传入的模板由本对象接管：写入会修改模板，close时模板也一并关闭，调用方不应再使用
+     * @param template 模板，为null时创建空白工作簿；不为null时从第一个sheet的最后一行之后开始写入
+     * @param rowAccessWindowSize 内存中保留的行数
+     * @param compressTempFiles 是否压缩临时文件，压缩后临时文件更小但写入更慢
+     * @author ChenDuochuang
+     */
+    public ExcelStreamWriter(XSSFWorkbook template, int rowAccessWindowSize, boolean compressTempFiles) {
+        if (rowAccessWindowSize <= 0) {
+            throw new IllegalArgumentException("Illegal row access window size: " + rowAccessWindowSize);
+        }
+        int startRow = 0;
+        if (template != null && template.getNumberOfSheets() > 0) {
+            Sheet first = template.getSheetAt(0);
+            // 没有行的sheet的getLastRowNum也为0
+            startRow = first.getPhysicalNumberOfRows() == 0 ? 0 : first.getLastRowNum() + 1;
+        }
+        this.workbook = new SXSSFWorkbook(template, rowAccessWindowSize, compressTempFiles);
+        this.sheet = workbook.getNumberOfSheets() > 0 ? workbook.getSheetAt(0) : workbook.createSheet();
+        this.contentCellStyle = buildCellStyle();
+        this.nextRow = startRow;
+    }
+
+    /**
+     * 写入一行
+     * @param values 各列的值
+     * @author ChenDuochuang
+     */
+    public void writeRow(String... values) {
+        Row row = sheet.createRow(nextRow++);
+        for (int i = 0; i < values.length; i++) {
+            Cell cell = row.createCell(i, CellType.STRING);
+            cell.setCellValue(values[i]);
+            cell.setCellStyle(contentCellStyle);
+        }
+    }
+
+    /**
+     * 逐行写入，每行一个值
+     * @param values 数据源，按需读取
+     * @return 写入的行数
+     * @author ChenDuochuang
+     */
+    public int writeColumn(Iterator<String> values) {
+        int count = 0;
+        while (values.hasNext()) {
+            writeRow(values.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 逐行写入
+     * @param rows 数据源，按需读取
+     * @return 写入的行数
+     * @author ChenDuochuang
+     */
+    public int writeRows(Iterator<String[]> rows) {
+        int count = 0;
+        while (rows.hasNext()) {
+            writeRow(rows.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 逐行写入
+     * @param rows 数据源，按顺序读取
+     * @return 写入的行数
+     * @author ChenDuochuang
+     */
+    public int writeRows(Stream<String[]> rows) {
+        return writeRows(rows.iterator());
+    }
+
+    /**
+     * 已写入的最后一行的行号加1
+     * @return
+     */
+    public int getRowCount() {
+        return nextRow;
+    }
+
+    /**
+     * 输出到流，不关闭输出流
+     * @param output
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public void writeTo(OutputStream output) throws IOException {
+        workbook.write(output);
+        output.flush();
+    }
+
+    /**
+     * 删除临时文件并关闭工作簿
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            workbook.dispose();
+        } finally {
+            workbook.close();
+        }
+    }
+
+    /**
+     * 创建Excel标准内容格式
+     */
+    private CellStyle buildCellStyle() {
+        CellStyle style = workbook.createCellStyle();
+        style.setBorderBottom(BorderStyle.THIN); // 下边框
+        style.setBorderLeft(BorderStyle.THIN); // 左边框
+        style.setBorderTop(BorderStyle.THIN); // 上边框
+        style.setBorderRight(BorderStyle.THIN); // 右边框
+        style.setVerticalAlignment(VerticalAlignment.CENTER); // 垂直居中
+        return style;
+    }
+}
@@ -0,0 +1,377 @@
+package com.chen.my_project.excel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Excel导出模板
+ *
+ * <pre>
+ * 模板文件只解析一次，第一个sheet转换为不可变的模型：表头行（内容、样式、行高）、合并单元格、列宽和各列的内容样式。
+ * 每次导出按模型创建新的Workbook，不再读取和解析模板文件，样式通过StyleRegistry去重。
+ *
+ * 表头单元格中的 ${key} 在导出时替换为参数中的值，没有对应参数时替换为空字符串。
+ * 模板最后一行的单元格都没有值时，视为数据行的样式行：不输出，其中各单元格的样式作为对应列的内容样式，
+ * 数据从该行开始写入；否则数据从表头之后开始写入，各列使用Excel标准内容格式。
+ * 按资源路径加载的模板会缓存，可在多线程间共享。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExcelTemplate {
+
+    /** 按资源路径缓存的模板 */
+    private static final ConcurrentMap<String, ExcelTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final ExportFormat format;
+
+    private final String sheetName;
+
+    private final short defaultRowHeight;
+
+    /** 各列的宽度，单位为1/256字符宽度 */
+    private final int[] columnWidths;
+
+    private final TemplateRow[] headerRows;
+
+    private final CellRangeAddress[] mergedRegions;
+
+    /** 各列的内容样式 */
+    private final CellStyleSpec[] columnStyles;
+
+    private final int dataStartRow;
+
+    private ExcelTemplate(Workbook workbook) {
+        Sheet sheet = workbook.getSheetAt(0);
+        this.format = workbook instanceof HSSFWorkbook ? ExportFormat.XLS : ExportFormat.XLSX;
+        this.sheetName = sheet.getSheetName();
+        this.defaultRowHeight = sheet.getDefaultRowHeight();
+
+        List<TemplateRow> rows = new ArrayList<>();
+        int maxColumn = -1;
+        for (Row row : sheet) {
+            TemplateRow templateRow = new TemplateRow(row, workbook);
+            rows.add(templateRow);
+            maxColumn = Math.max(maxColumn, row.getLastCellNum() - 1);
+        }
+
+        TemplateRow last = rows.isEmpty() ? null : rows.get(rows.size() - 1);
+        if (last != null && last.cells.length > 0 && last.isBlank()) {
+            // 最后一行为样式行
+            rows.remove(rows.size() - 1);
+            this.dataStartRow = last.rowNum;
+            this.columnStyles = new CellStyleSpec[maxColumn + 1];
+            for (TemplateCell cell : last.cells) {
+                columnStyles[cell.column] = cell.style;
+            }
+        } else {
+            this.dataStartRow = last == null ? 0 : last.rowNum + 1;
+            this.columnStyles = new CellStyleSpec[0];
+        }
+        this.headerRows = rows.toArray(new TemplateRow[0]);
+
+        this.columnWidths = new int[maxColumn + 1];
+        for (int i = 0; i <= maxColumn; i++) {
+            columnWidths[i] = sheet.getColumnWidth(i);
+        }
+        List<CellRangeAddress> regions = sheet.getMergedRegions();
+        this.mergedRegions = new CellRangeAddress[regions.size()];
+        for (int i = 0; i < mergedRegions.length; i++) {
+            mergedRegions[i] = regions.get(i).copy();
+        }
+    }
+
+    /**
+     * 加载类路径中的模板，每个路径只解析一次
+     * @param resource 资源路径，如 /excel/T-BOX信息导出模板.xls
+     * @return
+     * @throws IllegalArgumentException 模板不存在
+     * @throws UncheckedIOException 模板读取失败
+     * @author ChenDuochuang
+     */
+    public static ExcelTemplate load(String resource) {
+        return TEMPLATES.computeIfAbsent(resource, path -> {
+            try (InputStream in = ExcelTemplate.class.getResourceAsStream(path)) {
+                if (in == null) {
+                    throw new IllegalArgumentException("Template not found: " + path);
+                }
+                return parse(in);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to load template: " + path, e);
+            }
+        });
+    }
+
+    /**
+     * 解析模板，不缓存，按文件头判断格式，不关闭输入流
+     * @param in
+     * @return
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static ExcelTemplate parse(InputStream in) throws IOException {
+        try (Workbook workbook = WorkbookFactory.create(in)) {
+            if (workbook.getNumberOfSheets() == 0) {
+                throw new IOException("Template has no sheet");
+            }
+            return new ExcelTemplate(workbook);
+        } catch (InvalidFormatException e) {
+            throw new IOException("Failed to read template", e);
+        }
+    }
+
+    /**
+     * 开始一次导出
+     * @param params 表头中 ${key} 的值
+     * @return 使用完后必须关闭
+     * @author ChenDuochuang
+     */
+    public Export newExport(Map<String, String> params) {
+        return new Export(this, params);
+    }
+
+    /**
+     * 开始一次导出，没有参数
+     * @return 使用完后必须关闭
+     * @author ChenDuochuang
+     */
+    public Export newExport() {
+        return newExport(Collections.emptyMap());
+    }
+
+    /**
+     * 模板的格式，导出的格式相同
+     * @return
+     */
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 第一个数据行的行号
+     * @return
+     */
+    public int getDataStartRow() {
+        return dataStartRow;
+    }
+
+    /**
+     * 替换文本中的 ${key}
+     */
+    private static String fill(String text, Map<String, String> params) {
+        int start = text.indexOf("${");
+        if (start < 0) {
+            return text;
+        }
+        StringBuilder sb = new StringBuilder(text.length());
+        int from = 0;
+        while (start >= 0) {
+            int end = text.indexOf('}', start + 2);
+            if (end < 0) {
+                break;
+            }
+            sb.append(text, from, start);
+            String value = params.get(text.substring(start + 2, end));
+            if (value != null) {
+                sb.append(value);
+            }
+            from = end + 1;
+            start = text.indexOf("${", from);
+        }
+        return sb.append(text, from, text.length()).toString();
+    }
+
+    /**
+     * 一次导出，按模板创建Workbook并逐行写入数据，非线程安全
+     */
+    public static final class Export implements Closeable {
+
+        private final Workbook workbook;
+
+        private final Sheet sheet;
+
+        private final StyleRegistry styles;
+
+        /** 各列的内容样式，下标超出时使用defaultStyle */
+        private final CellStyle[] columnStyles;
+
+        private final CellStyle defaultStyle;
+
+        /** 下一行的行号 */
+        private int nextRow;
+
+        private Export(ExcelTemplate template, Map<String, String> params) {
+            this.workbook = template.format == ExportFormat.XLS ? new HSSFWorkbook() : new XSSFWorkbook();
+            this.sheet = workbook.createSheet(template.sheetName);
+            this.styles = new StyleRegistry(workbook);
+            sheet.setDefaultRowHeight(template.defaultRowHeight);
+            for (int i = 0; i < template.columnWidths.length; i++) {
+                sheet.setColumnWidth(i, template.columnWidths[i]);
+            }
+            for (TemplateRow templateRow : template.headerRows) {
+                Row row = sheet.createRow(templateRow.rowNum);
+                if (templateRow.height >= 0) {
+                    row.setHeight(templateRow.height);
+                }
+                for (TemplateCell templateCell : templateRow.cells) {
+                    Cell cell = row.createCell(templateCell.column);
+                    if (!templateCell.text.isEmpty()) {
+                        cell.setCellValue(templateCell.placeholder ? fill(templateCell.text, params)
+                                : templateCell.text);
+                    }
+                    cell.setCellStyle(styles.get(templateCell.style));
+                }
+            }
+            for (CellRangeAddress region : template.mergedRegions) {
+                // 模板中的合并区域已校验过，不再检查重叠
+                sheet.addMergedRegionUnsafe(region.copy());
+            }
+            this.defaultStyle = styles.get(CellStyleSpec.BORDERED);
+            this.columnStyles = new CellStyle[template.columnStyles.length];
+            for (int i = 0; i < columnStyles.length; i++) {
+                CellStyleSpec spec = template.columnStyles[i];
+                columnStyles[i] = spec == null ? defaultStyle : styles.get(spec);
+            }
+            this.nextRow = template.dataStartRow;
+        }
+
+        /**
+         * 写入一行数据
+         * @param values 各列的值
+         * @author ChenDuochuang
+         */
+        public void writeRow(String... values) {
+            Row row = sheet.createRow(nextRow++);
+            for (int i = 0; i < values.length; i++) {
+                Cell cell = row.createCell(i, CellType.STRING);
+                cell.setCellValue(values[i]);
+                cell.setCellStyle(i < columnStyles.length ? columnStyles[i] : defaultStyle);
+            }
+        }
+
+        /**
+         * 逐行写入数据
+         * @param rows 数据源，按需读取
+         * @return 写入的行数
+         * @author ChenDuochuang
+         */
+        public int writeRows(Iterator<String[]> rows) {
+            int count = 0;
+            while (rows.hasNext()) {
+                writeRow(rows.next());
+                count++;
+            }
+            return count;
+        }
+
+        /**
+         * 导出的Workbook，可继续修改
+         * @return
+         */
+        public Workbook getWorkbook() {
+            return workbook;
+        }
+
+        /**
+         * Workbook的样式注册表，自定义单元格样式时使用
+         * @return
+         */
+        public StyleRegistry getStyles() {
+            return styles;
+        }
+
+        /**
+         * 输出到流，不关闭输出流
+         * @param output
+         * @throws IOException
+         * @author ChenDuochuang
+         */
+        public void writeTo(OutputStream output) throws IOException {
+            workbook.write(output);
+            output.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            workbook.close();
+        }
+    }
+
+    /**
+     * 模板中的一行
+     */
+    private static final class TemplateRow {
+
+        private final int rowNum;
+
+        /** 行高，-1表示默认行高 */
+        private final short height;
+
+        private final TemplateCell[] cells;
+
+        private TemplateRow(Row row, Workbook workbook) {
+            this.rowNum = row.getRowNum();
+            this.height = row.getHeight() != row.getSheet().getDefaultRowHeight() ? row.getHeight() : -1;
+            List<TemplateCell> list = new ArrayList<>();
+            for (Cell cell : row) {
+                list.add(new TemplateCell(cell, workbook));
+            }
+            this.cells = list.toArray(new TemplateCell[0]);
+        }
+
+        private boolean isBlank() {
+            for (TemplateCell cell : cells) {
+                if (!cell.text.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 模板中的一个单元格
+     */
+    private static final class TemplateCell {
+
+        private final int column;
+
+        /** 显示值 */
+        private final String text;
+
+        /** 是否包含 ${key} */
+        private final boolean placeholder;
+
+        private final CellStyleSpec style;
+
+        private TemplateCell(Cell cell, Workbook workbook) {
+            this.column = cell.getColumnIndex();
+            this.text = ExcelUtil.formatCellValue(cell);
+            this.placeholder = text.contains("${");
+            this.style = CellStyleSpec.of(cell.getCellStyle(), workbook);
+        }
+    }
+}
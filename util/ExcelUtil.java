@@ -8,21 +8,24 @@ import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
-import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.VerticalAlignment;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.web.multipart.MultipartFile;
@@ -38,11 +41,25 @@ public final class ExcelUtil {
     /** 日志 */
     private static final Logger logger = LogManager.getLogger(ExcelUtil.class);
 
+    /** 导出模板 */
+    private static final String EXPORT_TEMPLATE = "/excel/T-BOX信息导出模板.xls";
+
+    /** DataFormatter非线程安全，每个线程一个 */
+    private static final ThreadLocal<DataFormatter> DATA_FORMATTER = ThreadLocal.withInitial(DataFormatter::new);
+
+    /** .xls的最大行数，含表头 */
+    private static final int MAX_XLS_ROWS = SpreadsheetVersion.EXCEL97.getMaxRows();
+
     private ExcelUtil() {
     }
 
     /**
      * 读入Excel文件获取Workbook对象
+     * 
+     * <pre>
+     * 会把整个上传文件缓存在内存中再解析，大文件应使用ExcelStreamReader流式读取，
+     * 或通过ExcelSource落盘后用openWorkbook从文件打开
+     * </pre>
      * @param multipartFile
      * @return
      * @author ChenDC
@@ -93,8 +110,36 @@ public final class ExcelUtil {
         }
     }
 
+    /**
+     * 流式读取上传文件中的信息，不创建Workbook对象，适合大文件
+     * @param multipartFile
+     * @author ChenDuochuang
+     */
+    public static void getValueFromExcel(MultipartFile multipartFile) {
+        logger.info("开始流式解析Excel文件");
+        String fileName = multipartFile.getOriginalFilename();
+        try {
+            // 读取第一个sheet
+            ExcelStreamReader.read(multipartFile, row -> {
+                // 跳过空行
+                if (row.getString(0) == null) {
+                    return;
+                }
+
+                // 取第1列的值
+                logger.info("++value:" + row.getString(0));
+            });
+        } catch (Exception e) {
+            logger.error("读取文件：{}出错，错误信息：", fileName, e);
+        }
+    }
+
     /**
      * 生成Excel
+     * 
+     * <pre>
+     * 数据量较大时应使用ExcelStreamWriter
+     * </pre>
      * @param workbook
      * @param list
      * @author ChenDuochuang
@@ -102,8 +147,8 @@ public final class ExcelUtil {
     public static void generateExcelData(Workbook workbook, List<String> list) {
         // 取得sheet页
         Sheet sheet = workbook.getSheetAt(0);
-        // 内容单元格样式
-        CellStyle conetentCellStyle = buildCellStyle(workbook);
+        // 内容单元格样式，复用workbook中已有的相同样式
+        CellStyle conetentCellStyle = new StyleRegistry(workbook).get(CellStyleSpec.BORDERED);
 
         int contentStartRow = 1;
         for (String value : list) {
@@ -121,11 +166,156 @@ public final class ExcelUtil {
      */
     public static void convertDownloadResponse(String fileName, HttpServletResponse response)
             throws UnsupportedEncodingException {
-        response.setContentType("application/octet-stream");
+        convertDownloadResponse(fileName, ExportFormat.XLS, response);
+    }
+
+    /**
+     * 转成一个下载的响应体
+     * @param fileName 文件名，不含后缀
+     * @param format 导出格式，决定Content-Type和文件后缀
+     * @param response
+     * @throws UnsupportedEncodingException
+     * @author ChenDuochuang
+     */
+    public static void convertDownloadResponse(String fileName, ExportFormat format, HttpServletResponse response)
+            throws UnsupportedEncodingException {
+        response.setContentType(format.getContentType());
         response.setHeader("Pragma", "public");
         response.setHeader("Cache-Control", "max-age=40");
         response.setHeader("Content-Disposition",
-                "attachment;filename=" + URLEncoder.encode(fileName, "UTF-8").concat(".xls"));
+                "attachment;filename=" + URLEncoder.encode(fileName, "UTF-8").concat(format.getSuffix()));
+    }
+
+    /**
+     * 以.xlsx格式流式导出到响应
+     * 
+     * <pre>
+     * 数据源按需读取，逐行写入SXSSFWorkbook，内存中只保留最近的若干行，适合大数据量导出
+     * </pre>
+     * @param fileName 文件名，不含后缀
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源
+     * @param response
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static void exportExcel(String fileName, String[] headers, Iterator<String[]> rows,
+            HttpServletResponse response) throws IOException {
+        convertDownloadResponse(fileName, ExportFormat.XLSX, response);
+        int count = write(response.getOutputStream(), headers, rows, ExportFormat.XLSX);
+        logger.info("导出EXCEL：{}，共{}行", fileName, count);
+    }
+
+    /**
+     * 以CSV格式流式导出到响应
+     * 
+     * <pre>
+     * 不创建Workbook，逐行编码后直接写入响应，适合只需要数据的下游系统
+     * </pre>
+     * @param fileName 文件名，不含后缀
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源
+     * @param compress 是否gzip压缩，压缩时文件后缀为.csv.gz
+     * @param response
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static void exportCsv(String fileName, String[] headers, Iterator<String[]> rows, boolean compress,
+            HttpServletResponse response) throws IOException {
+        ExportFormat format = compress ? ExportFormat.CSV_GZIP : ExportFormat.CSV;
+        convertDownloadResponse(fileName, format, response);
+        int count = write(response.getOutputStream(), headers, rows, format);
+        logger.info("导出CSV：{}，共{}行", fileName, count);
+    }
+
+    /**
+     * 按请求的Accept头选择格式导出，不能确定时导出.xlsx
+     * @param fileName 文件名，不含后缀
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源
+     * @param request
+     * @param response
+     * @throws IOException
+     * @author ChenDuochuang
+     */
+    public static void export(String fileName, String[] headers, Iterator<String[]> rows, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        export(fileName, headers, rows, ExportFormat.negotiate(request.getHeader("Accept"), ExportFormat.XLSX),
+                response);
+    }
+
+    /**
+     * 按指定格式导出
+     * @param fileName 文件名，不含后缀
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源
+     * @param format 导出格式，XLS只适合行数确定不超过65536行（含表头）的导出
+     * @param response
+     * @throws IOException
+     * @throws IllegalArgumentException XLS格式超过65536行
+     * @author ChenDuochuang
+     */
+    public static void export(String fileName, String[] headers, Iterator<String[]> rows, ExportFormat format,
+            HttpServletResponse response) throws IOException {
+        convertDownloadResponse(fileName, format, response);
+        int count = write(response.getOutputStream(), headers, rows, format);
+        logger.info("导出：{}{}，共{}行", fileName, format.getSuffix(), count);
+    }
+
+    /**
+     * 按格式写入输出流，不关闭输出流
+     * @param output
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源
+     * @param format 导出格式
+     * @return 写入的数据行数，不含表头
+     * @throws IOException
+     * @throws IllegalArgumentException XLS格式超过65536行（含表头）
+     * @author ChenDuochuang
+     */
+    static int write(OutputStream output, String[] headers, Iterator<String[]> rows, ExportFormat format)
+            throws IOException {
+        switch (format) {
+        case CSV:
+        case CSV_GZIP:
+            try (CsvWriter writer = new CsvWriter(output, format == ExportFormat.CSV_GZIP, true,
+                    CsvWriter.DEFAULT_BUFFER_SIZE)) {
+                if (headers != null) {
+                    writer.writeRow(headers);
+                }
+                return writer.writeRows(rows);
+            }
+        case XLSX:
+            try (ExcelStreamWriter writer = new ExcelStreamWriter()) {
+                if (headers != null) {
+                    writer.writeRow(headers);
+                }
+                int count = writer.writeRows(rows);
+                writer.writeTo(output);
+                return count;
+            }
+        default:
+            try (Workbook workbook = new HSSFWorkbook()) {
+                Sheet sheet = workbook.createSheet();
+                CellStyle style = new StyleRegistry(workbook).get(CellStyleSpec.BORDERED);
+                int rowNum = 0;
+                if (headers != null) {
+                    createHSSFRow(sheet, rowNum++, headers, style);
+                }
+                int count = 0;
+                while (rows.hasNext()) {
+                    if (rowNum >= MAX_XLS_ROWS) {
+                        throw new IllegalArgumentException("Too many rows for xls, max " + MAX_XLS_ROWS
+                                + " rows including headers, use xlsx or csv instead");
+                    }
+                    createHSSFRow(sheet, rowNum++, rows.next(), style);
+                    count++;
+                }
+                workbook.write(output);
+                output.flush();
+                return count;
+            }
+        }
     }
 
     /**
@@ -165,7 +355,20 @@ public final class ExcelUtil {
      * @author ChenDC
      */
     public static InputStream getResourceAsStream(Class<?> clzz) {
-        return clzz.getResourceAsStream("/excel/T-BOX信息导出模板.xls");
+        return clzz.getResourceAsStream(EXPORT_TEMPLATE);
+    }
+
+    /**
+     * 获取导出模板，模板只解析一次
+     * 
+     * <pre>
+     * 每次导出调用newExport按模板创建Workbook，不再读取模板文件
+     * </pre>
+     * @return
+     * @author ChenDuochuang
+     */
+    public static ExcelTemplate getExportTemplate() {
+        return ExcelTemplate.load(EXPORT_TEMPLATE);
     }
 
     /**
@@ -186,21 +389,13 @@ public final class ExcelUtil {
     }
 
     /**
-     * 创建Excel标准内容格式
-     * @param workbook
-     * @return
-     * @author ChenDC
+     * 创建一行单元格
      */
-    private static CellStyle buildCellStyle(Workbook workbook) {
-        // 内容单元格样式
-        CellStyle contentCellStyle = workbook.createCellStyle();
-        contentCellStyle.setBorderBottom(BorderStyle.THIN); // 下边框
-        contentCellStyle.setBorderLeft(BorderStyle.THIN); // 左边框
-        contentCellStyle.setBorderTop(BorderStyle.THIN); // 上边框
-        contentCellStyle.setBorderRight(BorderStyle.THIN); // 右边框
-        contentCellStyle.setVerticalAlignment(VerticalAlignment.CENTER); // 垂直居中
-
-        return contentCellStyle;
+    private static void createHSSFRow(Sheet sheet, int rowNum, String[] values, CellStyle style) {
+        Row row = sheet.createRow(rowNum);
+        for (int i = 0; i < values.length; i++) {
+            createHSSFCell(row, i, values[i], style);
+        }
     }
 
     /**
@@ -211,15 +406,45 @@ public final class ExcelUtil {
      */
     private static String getCellValue(Cell cell) {
         if (null != cell) {
-            if (CellType.NUMERIC.equals(cell.getCellTypeEnum())) {
-                cell.setCellType(CellType.STRING);
-            }
-            return cell.getStringCellValue();
+            return formatCellValue(cell);
         }
         logger.error("未解析到cell");
         return null;
     }
 
+    /**
+     * 获取cell按单元格格式显示的值，不修改单元格类型
+     * 
+     * <pre>
+     * 公式取缓存的计算结果，与ExcelStreamReader读取的值一致
+     * </pre>
+     * @param cell
+     * @return 空单元格为空字符串
+     * @author ChenDuochuang
+     */
+    static String formatCellValue(Cell cell) {
+        if (null == cell) {
+            return "";
+        }
+        if (CellType.FORMULA != cell.getCellTypeEnum()) {
+            return DATA_FORMATTER.get().formatCellValue(cell);
+        }
+        switch (cell.getCachedFormulaResultTypeEnum()) {
+        case NUMERIC:
+            CellStyle style = cell.getCellStyle();
+            return DATA_FORMATTER.get().formatRawCellContents(cell.getNumericCellValue(), style.getDataFormat(),
+                    style.getDataFormatString());
+        case STRING:
+            return cell.getStringCellValue();
+        case BOOLEAN:
+            return cell.getBooleanCellValue() ? "TRUE" : "FALSE";
+        case ERROR:
+            return FormulaError.forInt(cell.getErrorCellValue()).getString();
+        default:
+            return "";
+        }
+    }
+
     /**
      * 验证Cell是否为空
      * 
@@ -0,0 +1,110 @@
+package com.chen.my_project.excel;
+
+import java.util.Locale;
+
+/**
+ * 导出文件格式
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public enum ExportFormat {
+
+    /** Excel 97-2003，最多65536行 */
+    XLS(ExcelConstants.SUFFIX_XLS, "application/vnd.ms-excel"),
+
+    /** Excel 2007及以上，最多1048576行 */
+    XLSX(ExcelConstants.SUFFIX_XLSX, "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"),
+
+    /** CSV（RFC 4180），UTF-8编码 */
+    CSV(".csv", "text/csv;charset=UTF-8"),
+
+    /** gzip压缩的CSV */
+    CSV_GZIP(".csv.gz", "application/gzip");
+
+    /** 文件后缀 */
+    private final String suffix;
+
+    /** 响应的Content-Type */
+    private final String contentType;
+
+    ExportFormat(String suffix, String contentType) {
+        this.suffix = suffix;
+        this.contentType = contentType;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * 按请求的Accept头选择导出格式
+     *
+     * <pre>
+     * 选择q值最大的可支持类型，q值相同时取靠前的；text/*匹配CSV，application/x-gzip匹配CSV_GZIP，
+     * 通配或没有可支持的类型时返回默认格式。
+     * application/vnd.ms-excel匹配XLSX：XLS需要在内存中生成且最多65536行，不允许客户端通过Accept头选择。
+     * </pre>
+     * @param accept Accept头，可以为null
+     * @param defaultFormat 默认格式
+     * @return
+     * @author ChenDuochuang
+     */
+    public static ExportFormat negotiate(String accept, ExportFormat defaultFormat) {
+        if (accept == null || accept.isEmpty()) {
+            return defaultFormat;
+        }
+        ExportFormat best = null;
+        double bestQuality = 0;
+        for (String range : accept.split(",")) {
+            String[] parts = range.split(";");
+            ExportFormat format = ofMediaType(parts[0].trim().toLowerCase(Locale.ROOT));
+            if (format == null) {
+                continue;
+            }
+            double quality = quality(parts);
+            if (quality > bestQuality) {
+                best = format;
+                bestQuality = quality;
+            }
+        }
+        return best == null ? defaultFormat : best;
+    }
+
+    private static ExportFormat ofMediaType(String mediaType) {
+        switch (mediaType) {
+        case "application/vnd.ms-excel":
+        case "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet":
+            return XLSX;
+        case "text/csv":
+        case "text/*":
+            return CSV;
+        case "application/gzip":
+        case "application/x-gzip":
+            return CSV_GZIP;
+        default:
+            return null;
+        }
+    }
+
+    /**
+     * 媒体范围的q值，没有时为1，格式不正确时为0
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            if (param.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(param.substring(2));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,202 @@
+package com.chen.my_project.excel;
+
+import java.io.File;
+
+/**
+ * 异步导出任务的状态
+ *
+ * <pre>
+ * 由ExportJobService创建和更新，调用方只读取状态和进度。
+ * 任务从服务中移除（过期、失败后重新提交或服务关闭）时退役，文件在所有下载结束后才删除。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExportJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+
+        /** 等待执行 */
+        QUEUED,
+
+        /** 正在导出 */
+        RUNNING,
+
+        /** 导出完成，可以下载 */
+        DONE,
+
+        /** 导出失败 */
+        FAILED
+    }
+
+    /** 任务ID，为导出参数的SHA-256 */
+    private final String id;
+
+    /** 下载的文件名，不含后缀 */
+    private final String fileName;
+
+    private final ExportFormat format;
+
+    private final long createdTime;
+
+    private volatile Status status = Status.QUEUED;
+
+    /** 已写入的数据行数，只由导出线程更新 */
+    private volatile long rowCount;
+
+    private volatile File file;
+
+    private volatile Throwable error;
+
+    private volatile long finishedTime;
+
+    /** 正在进行的下载数，与retired一起由this同步 */
+    private int pins;
+
+    /** 已从服务中移除 */
+    private boolean retired;
+
+    ExportJob(String id, String fileName, ExportFormat format) {
+        this.id = id;
+        this.fileName = fileName;
+        this.format = format;
+        this.createdTime = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * 已写入的数据行数，不含表头
+     * @return
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * 导出的文件，完成前为null
+     * @return
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * 失败原因，没有失败时为null
+     * @return
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public long getCreatedTime() {
+        return createdTime;
+    }
+
+    /**
+     * 完成或失败的时间，之前为0
+     * @return
+     */
+    public long getFinishedTime() {
+        return finishedTime;
+    }
+
+    /**
+     * 是否已结束（完成或失败）
+     * @return
+     */
+    public boolean isFinished() {
+        return status == Status.DONE || status == Status.FAILED;
+    }
+
+    void running() {
+        status = Status.RUNNING;
+    }
+
+    void progress(long rows) {
+        rowCount = rows;
+    }
+
+    /**
+     * @return false：任务已退役，调用方应删除文件
+     */
+    synchronized boolean done(File result) {
+        if (retired) {
+            return false;
+        }
+        file = result;
+        finishedTime = System.currentTimeMillis();
+        status = Status.DONE;
+        return true;
+    }
+
+    void failed(Throwable e) {
+        error = e;
+        finishedTime = System.currentTimeMillis();
+        status = Status.FAILED;
+    }
+
+    /**
+     * 下载开始时固定文件，之后即使任务退役文件也保留到下载结束
+     * @return false：任务已退役
+     */
+    synchronized boolean pin() {
+        if (retired) {
+            return false;
+        }
+        pins++;
+        return true;
+    }
+
+    /**
+     * 下载结束
+     * @return true：任务已退役且没有其他下载，调用方应删除文件
+     */
+    synchronized boolean unpin() {
+        pins--;
+        return retired && pins == 0;
+    }
+
+    /**
+     * 从服务中移除时调用
+     * @return true：没有正在进行的下载，调用方应立即删除文件
+     */
+    synchronized boolean retire() {
+        if (retired) {
+            return false;
+        }
+        retired = true;
+        return pins == 0;
+    }
+
+    /**
+     * 完成后超过有效期即过期，未结束的任务不过期
+     */
+    boolean isExpired(long now, long ttlMillis) {
+        return isFinished() && now - finishedTime >= ttlMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ExportJob [id=" + id + ", fileName=" + fileName + ", format=" + format + ", status=" + status
+                + ", rowCount=" + rowCount + "]";
+    }
+}
@@ -0,0 +1,328 @@
+package com.chen.my_project.excel;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * 异步导出服务
+ *
+ * <pre>
+ * 请求线程只提交任务并返回任务ID，导出在有界线程池中执行，结果写入本地临时文件，之后按任务ID查询进度和下载。
+ * 任务ID为导出名称、参数、格式和表头的SHA-256：参数相同的导出在结果有效期内直接复用已有结果，
+ * 同时提交的相同导出只执行一次。失败或过期的任务再次提交时重新导出。
+ * 过期的结果在提交、查询或调用purgeExpired时删除；close时停止所有任务并删除全部临时文件。
+ * 正在下载的文件不会被删除：任务在下载期间被移除时，文件在下载结束后删除。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class ExportJobService implements Closeable {
+
+    /** 日志 */
+    private static final Logger logger = LogManager.getLogger(ExportJobService.class);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** 导出线程的编号 */
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final ThreadPoolExecutor executor;
+
+    /** 临时文件目录 */
+    private final File directory;
+
+    /** 结果有效期 */
+    private final long ttlMillis;
+
+    private final ConcurrentMap<String, ExportJob> jobs = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    /**
+     * @param threads 导出线程数
+     * @param queueCapacity 等待执行的任务数上限，超出时提交失败
+     * @param ttlMillis 结果有效期，单位为毫秒
+     * @param directory 临时文件目录，为null时使用系统临时目录
+     */
+    public ExportJobService(int threads, int queueCapacity, long ttlMillis, File directory) {
+        if (threads <= 0 || queueCapacity <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException(
+                    "Illegal export job config: " + threads + ", " + queueCapacity + ", " + ttlMillis);
+        }
+        this.directory = directory;
+        this.ttlMillis = ttlMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "excel-export-" + THREAD_NUMBER.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * 提交导出任务，参数相同且结果未过期的任务直接返回，已有任务失败或过期时重新提交。
+     * 返回的任务可能已经失败：本次提交的导出失败，或同时提交的其他调用重新提交的导出失败
+     * @param name 导出名称，区分不同的导出
+     * @param params 导出参数，值的toString参与计算任务ID
+     * @param format 导出格式
+     * @param fileName 下载的文件名，不含后缀，复用已有任务时使用已有任务的文件名
+     * @param headers 表头，为null时不写表头
+     * @param rows 数据源，在导出线程上调用
+     * @return
+     * @throws IllegalStateException 等待执行的任务已满或服务已关闭
+     * @author ChenDuochuang
+     */
+    public ExportJob submit(String name, Map<String, ?> params, ExportFormat format, String fileName,
+            String[] headers, Supplier<? extends Iterator<String[]>> rows) {
+        if (closed) {
+            throw new IllegalStateException("Export job service closed");
+        }
+        purgeExpired();
+        String id = jobId(name, params, format, headers);
+        ExportJob[] created = new ExportJob[1];
+        boolean replaced = false;
+        while (true) {
+            ExportJob job = jobs.computeIfAbsent(id,
+                    key -> created[0] = start(new ExportJob(key, fileName, format), headers, rows));
+            // 本次创建的任务即使已失败也直接返回，不重复执行导出
+            if (job == created[0] || replaced || job.getStatus() != ExportJob.Status.FAILED
+                    && !job.isExpired(System.currentTimeMillis(), ttlMillis)) {
+                return job;
+            }
+            // 已有任务失败或过期，移除后重新提交，每次调用只替换一次
+            replaced = true;
+            if (jobs.remove(id, job)) {
+                retire(job);
+            }
+        }
+    }
+
+    /**
+     * 查询任务
+     * @param id 任务ID
+     * @return 不存在或已过期时为null
+     * @author ChenDuochuang
+     */
+    public ExportJob getJob(String id) {
+        ExportJob job = jobs.get(id);
+        if (job != null && job.isExpired(System.currentTimeMillis(), ttlMillis)) {
+            if (jobs.remove(id, job)) {
+                retire(job);
+            }
+            return null;
+        }
+        return job;
+    }
+
+    /**
+     * 下载已完成的任务
+     * @param id 任务ID
+     * @param response
+     * @throws IOException
+     * @throws IllegalArgumentException 任务不存在或已过期
+     * @throws IllegalStateException 任务未完成
+     * @author ChenDuochuang
+     */
+    public void download(String id, HttpServletResponse response) throws IOException {
+        ExportJob job = jobs.get(id);
+        // 先固定文件再检查是否过期，下载期间其他请求移除任务时不会删除文件
+        if (job == null || !job.pin()) {
+            throw new IllegalArgumentException("Export job not found: " + id);
+        }
+        try {
+            if (getJob(id) != job) {
+                throw new IllegalArgumentException("Export job not found: " + id);
+            }
+            if (job.getStatus() != ExportJob.Status.DONE) {
+                throw new IllegalStateException("Export job not finished: " + job);
+            }
+            File file = job.getFile();
+            ExcelUtil.convertDownloadResponse(job.getFileName(), job.getFormat(), response);
+            response.setContentLengthLong(file.length());
+            Files.copy(file.toPath(), response.getOutputStream());
+        } finally {
+            if (job.unpin()) {
+                deleteFile(job);
+            }
+        }
+    }
+
+    /**
+     * 删除过期的任务和文件
+     * @return 删除的任务数
+     * @author ChenDuochuang
+     */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int count = 0;
+        for (ExportJob job : jobs.values()) {
+            if (job.isExpired(now, ttlMillis) && jobs.remove(job.getId(), job)) {
+                retire(job);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 停止所有任务并删除全部临时文件，之后完成的任务也会删除自己的文件
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (ExportJob job : jobs.values()) {
+            if (jobs.remove(job.getId(), job)) {
+                retire(job);
+            }
+        }
+    }
+
+    private ExportJob start(ExportJob job, String[] headers, Supplier<? extends Iterator<String[]>> rows) {
+        try {
+            executor.execute(() -> run(job, headers, rows));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Too many export jobs", e);
+        }
+        return job;
+    }
+
+    private void run(ExportJob job, String[] headers, Supplier<? extends Iterator<String[]>> rows) {
+        job.running();
+        long start = System.currentTimeMillis();
+        File file = null;
+        try {
+            file = File.createTempFile("export-", job.getFormat().getSuffix(), directory);
+            try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file.toPath()))) {
+                ExcelUtil.write(output, headers, new CountingIterator(rows.get(), job), job.getFormat());
+            }
+            if (!job.done(file)) {
+                // 服务已关闭，任务已被移除
+                deleteFile(file);
+                return;
+            }
+            logger.info("导出任务：{}完成，共{}行，耗时{}ms", job.getId(), job.getRowCount(),
+                    System.currentTimeMillis() - start);
+        } catch (Throwable e) {
+            if (file != null) {
+                deleteFile(file);
+            }
+            job.failed(e);
+            logger.error("导出任务：{}失败，错误信息：", job.getId(), e);
+        }
+    }
+
+    /**
+     * 任务移除后退役，没有正在进行的下载时立即删除文件
+     */
+    private static void retire(ExportJob job) {
+        if (job.retire()) {
+            deleteFile(job);
+        }
+    }
+
+    private static void deleteFile(ExportJob job) {
+        File file = job.getFile();
+        if (file != null) {
+            deleteFile(file);
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete() && file.exists()) {
+            logger.warn("删除导出文件：{}失败", file);
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * 任务ID：导出名称、按名称排序的参数、格式和表头依次以“长度:内容”拼接后的SHA-256
+     */
+    static String jobId(String name, Map<String, ?> params, ExportFormat format, String[] headers) {
+        StringBuilder sb = new StringBuilder();
+        append(sb, name);
+        for (Map.Entry<String, ?> entry : new TreeMap<>(params).entrySet()) {
+            append(sb, entry.getKey());
+            Object value = entry.getValue();
+            append(sb, value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value));
+        }
+        append(sb, format.name());
+        append(sb, headers == null ? "null" : Arrays.toString(headers));
+
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xF];
+        }
+        return new String(hex);
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        sb.append(value.length()).append(':').append(value);
+    }
+
+    /**
+     * 读取时更新任务进度
+     */
+    private static final class CountingIterator implements Iterator<String[]> {
+
+        private final Iterator<String[]> rows;
+
+        private final ExportJob job;
+
+        private long count;
+
+        private CountingIterator(Iterator<String[]> rows, ExportJob job) {
+            this.rows = rows;
+            this.job = job;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return rows.hasNext();
+        }
+
+        @Override
+        public String[] next() {
+            String[] row = rows.next();
+            job.progress(++count);
+            return row;
+        }
+    }
+}
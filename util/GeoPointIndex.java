@@ -0,0 +1,445 @@
+package com.chen.my_project.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongConsumer;
+
+/**
+ * 经纬度点索引，支持最近邻（kNN）和半径查询
+ *
+ * <pre>
+ * 将经纬度转换为单位球面上的三维坐标后建立KD树，三维空间的弦长与球面距离单调对应，
+ * 因此在日期变更线和高纬度地区同样正确。
+ * 树以隐式结构保存在基本类型数组中：区间[lo, hi)的根节点为中点，左右子树分别为两侧区间。
+ * 创建后不可变，可多线程并发查询。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class GeoPointIndex {
+
+    /** 点数超过该值时并行创建子树 */
+    private static final int PARALLEL_THRESHOLD = 8192;
+
+    private final long[] ids;
+
+    private final double[] xs;
+
+    private final double[] ys;
+
+    private final double[] zs;
+
+    /** 每个节点的切分维度：0-x，1-y，2-z */
+    private final byte[] axes;
+
+    private GeoPointIndex(long[] ids, double[] xs, double[] ys, double[] zs) {
+        this.ids = ids;
+        this.xs = xs;
+        this.ys = ys;
+        this.zs = zs;
+        this.axes = new byte[ids.length];
+    }
+
+    /**
+     * 创建索引
+     * @param ids 点ID
+     * @param lons 经度
+     * @param lats 纬度
+     * @return
+     * @author ChenDuochuang
+     */
+    public static GeoPointIndex build(long[] ids, double[] lons, double[] lats) {
+        return build(ids, lons, lats, null);
+    }
+
+    /**
+     * 使用fork/join并行创建索引
+     * @param ids 点ID
+     * @param lons 经度
+     * @param lats 纬度
+     * @param pool 线程池，为null时在当前线程创建
+     * @return
+     * @author ChenDuochuang
+     */
+    public static GeoPointIndex build(long[] ids, double[] lons, double[] lats, ForkJoinPool pool) {
+        int n = ids.length;
+        if (lons.length != n || lats.length != n) {
+            throw new IllegalArgumentException("ids, lons and lats must have the same length");
+        }
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        double[] zs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double lat = Math.toRadians(lats[i]);
+            double lon = Math.toRadians(lons[i]);
+            double cosLat = Math.cos(lat);
+            xs[i] = cosLat * Math.cos(lon);
+            ys[i] = cosLat * Math.sin(lon);
+            zs[i] = Math.sin(lat);
+        }
+
+        GeoPointIndex index = new GeoPointIndex(ids.clone(), xs, ys, zs);
+        BuildTask task = new BuildTask(index, 0, n, pool != null);
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            task.compute();
+        }
+        return index;
+    }
+
+    /**
+     * 点数
+     * @return
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * 查询距离最近的k个点
+     * @param lon 经度
+     * @param lat 纬度
+     * @param k 个数，不大于0时返回空数组
+     * @return 点ID，按距离由近到远排序
+     * @author ChenDuochuang
+     */
+    public long[] nearest(double lon, double lat, int k) {
+        int size = Math.max(0, Math.min(k, ids.length));
+        long[] outIds = new long[size];
+        double[] outDistances = new double[size];
+        int count = nearest(lon, lat, size, outIds, outDistances);
+        return count == size ? outIds : Arrays.copyOf(outIds, count);
+    }
+
+    /**
+     * 查询距离最近的k个点，结果写入调用方提供的数组
+     * @param lon 经度
+     * @param lat 纬度
+     * @param k 个数，不能大于输出数组的长度
+     * @param outIds 点ID，按距离由近到远排序
+     * @param outDistances 与outIds对应的球面距离（米）
+     * @return 实际找到的点数
+     * @author ChenDuochuang
+     */
+    public int nearest(double lon, double lat, int k, long[] outIds, double[] outDistances) {
+        if (k > outIds.length || k > outDistances.length) {
+            throw new IllegalArgumentException("k is larger than the output arrays");
+        }
+        if (k <= 0 || ids.length == 0) {
+            return 0;
+        }
+        KnnSearch search = new KnnSearch(lon, lat, k, outIds, outDistances);
+        search.search(0, ids.length);
+
+        // 最大堆转为升序
+        int count = search.size;
+        for (int end = count - 1; end > 0; end--) {
+            search.swap(0, end);
+            search.siftDown(0, end);
+        }
+        for (int i = 0; i < count; i++) {
+            outDistances[i] = chordToMeters(outDistances[i]);
+        }
+        return count;
+    }
+
+    /**
+     * 查询指定半径内的所有点
+     * @param lon 经度
+     * @param lat 纬度
+     * @param radius 半径（米）
+     * @return 点ID，不保证顺序
+     * @author ChenDuochuang
+     */
+    public long[] within(double lon, double lat, double radius) {
+        long[][] holder = { new long[16] };
+        int[] size = { 0 };
+        forEachWithin(lon, lat, radius, id -> {
+            if (size[0] == holder[0].length) {
+                holder[0] = Arrays.copyOf(holder[0], size[0] << 1);
+            }
+            holder[0][size[0]++] = id;
+        });
+        return Arrays.copyOf(holder[0], size[0]);
+    }
+
+    /**
+     * 遍历指定半径内的所有点
+     * @param lon 经度
+     * @param lat 纬度
+     * @param radius 半径（米）
+     * @param consumer 点ID回调
+     * @return 点数
+     * @author ChenDuochuang
+     */
+    public int forEachWithin(double lon, double lat, double radius, LongConsumer consumer) {
+        if (ids.length == 0) {
+            return 0;
+        }
+        double latRad = Math.toRadians(lat);
+        double lonRad = Math.toRadians(lon);
+        double cosLat = Math.cos(latRad);
+        double[] point = { cosLat * Math.cos(lonRad), cosLat * Math.sin(lonRad), Math.sin(latRad) };
+        double limit = metersToChord2(radius);
+        return within(point, limit, 0, ids.length, consumer);
+    }
+
+    private int within(double[] point, double limit, int lo, int hi, LongConsumer consumer) {
+        int count = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (distance2(point, mid) <= limit) {
+                consumer.accept(ids[mid]);
+                count++;
+            }
+            double diff = point[axes[mid]] - coordinate(axes[mid], mid);
+            if (diff * diff <= limit) {
+                // 两侧都可能有满足条件的点，递归一侧，循环处理另一侧
+                count += within(point, limit, lo, mid, consumer);
+                lo = mid + 1;
+            } else if (diff < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return count;
+    }
+
+    private double coordinate(int axis, int i) {
+        return axis == 0 ? xs[i] : axis == 1 ? ys[i] : zs[i];
+    }
+
+    private double distance2(double[] point, int i) {
+        double dx = point[0] - xs[i];
+        double dy = point[1] - ys[i];
+        double dz = point[2] - zs[i];
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    /**
+     * 球面距离（米）转换为弦长的平方
+     */
+    private static double metersToChord2(double meters) {
+        double angle = Math.min(Math.PI, Math.max(0, meters) / DistanceUtil.EARTH_RADIUS_M);
+        double chord = 2 * Math.sin(angle / 2);
+        return chord * chord;
+    }
+
+    /**
+     * 弦长的平方转换为球面距离（米）
+     */
+    private static double chordToMeters(double chord2) {
+        return 2 * Math.asin(Math.min(1, Math.sqrt(chord2) / 2)) * DistanceUtil.EARTH_RADIUS_M;
+    }
+
+    /**
+     * kNN查询状态，outDistances在查询过程中保存弦长平方并作为最大堆使用
+     */
+    private final class KnnSearch {
+
+        private final double[] point;
+
+        private final int k;
+
+        private final long[] heapIds;
+
+        private final double[] heapDistances;
+
+        private int size;
+
+        private KnnSearch(double lon, double lat, int k, long[] heapIds, double[] heapDistances) {
+            double latRad = Math.toRadians(lat);
+            double lonRad = Math.toRadians(lon);
+            double cosLat = Math.cos(latRad);
+            this.point = new double[] { cosLat * Math.cos(lonRad), cosLat * Math.sin(lonRad), Math.sin(latRad) };
+            this.k = k;
+            this.heapIds = heapIds;
+            this.heapDistances = heapDistances;
+        }
+
+        private void search(int lo, int hi) {
+            if (lo >= hi) {
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            offer(mid, distance2(point, mid));
+
+            double diff = point[axes[mid]] - coordinate(axes[mid], mid);
+            // 先搜索查询点所在的一侧
+            if (diff < 0) {
+                search(lo, mid);
+                if (size < k || diff * diff < heapDistances[0]) {
+                    search(mid + 1, hi);
+                }
+            } else {
+                search(mid + 1, hi);
+                if (size < k || diff * diff < heapDistances[0]) {
+                    search(lo, mid);
+                }
+            }
+        }
+
+        private void offer(int i, double distance) {
+            if (size < k) {
+                heapIds[size] = ids[i];
+                heapDistances[size] = distance;
+                siftUp(size++);
+            } else if (distance < heapDistances[0]) {
+                heapIds[0] = ids[i];
+                heapDistances[0] = distance;
+                siftDown(0, size);
+            }
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapDistances[parent] >= heapDistances[i]) {
+                    return;
+                }
+                swap(parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i, int end) {
+            while (true) {
+                int largest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < end && heapDistances[left] > heapDistances[largest]) {
+                    largest = left;
+                }
+                if (right < end && heapDistances[right] > heapDistances[largest]) {
+                    largest = right;
+                }
+                if (largest == i) {
+                    return;
+                }
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = heapIds[a];
+            heapIds[a] = heapIds[b];
+            heapIds[b] = id;
+            double distance = heapDistances[a];
+            heapDistances[a] = heapDistances[b];
+            heapDistances[b] = distance;
+        }
+    }
+
+    /**
+     * 创建子树：选取区间内跨度最大的维度，按中位数切分
+     */
+    private static final class BuildTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final GeoPointIndex index;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final boolean parallel;
+
+        private BuildTask(GeoPointIndex index, int lo, int hi, boolean parallel) {
+            this.index = index;
+            this.lo = lo;
+            this.hi = hi;
+            this.parallel = parallel;
+        }
+
+        @Override
+        protected void compute() {
+            int from = lo;
+            int to = hi;
+            while (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                int axis = widestAxis(from, to);
+                index.axes[mid] = (byte) axis;
+                select(axis, from, to - 1, mid);
+
+                if (parallel && to - from > PARALLEL_THRESHOLD) {
+                    invokeAll(new BuildTask(index, from, mid, true), new BuildTask(index, mid + 1, to, true));
+                    return;
+                }
+                new BuildTask(index, from, mid, false).compute();
+                from = mid + 1;
+            }
+        }
+
+        private int widestAxis(int from, int to) {
+            double minX = Double.POSITIVE_INFINITY, maxX = Double.NEGATIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            double minZ = Double.POSITIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                minX = Math.min(minX, index.xs[i]);
+                maxX = Math.max(maxX, index.xs[i]);
+                minY = Math.min(minY, index.ys[i]);
+                maxY = Math.max(maxY, index.ys[i]);
+                minZ = Math.min(minZ, index.zs[i]);
+                maxZ = Math.max(maxZ, index.zs[i]);
+            }
+            double spanX = maxX - minX;
+            double spanY = maxY - minY;
+            double spanZ = maxZ - minZ;
+            if (spanX >= spanY && spanX >= spanZ) {
+                return 0;
+            }
+            return spanY >= spanZ ? 1 : 2;
+        }
+
+        /**
+         * 快速选择，使第k个位置上的点就位，左侧不大于它，右侧不小于它
+         */
+        private void select(int axis, int left, int right, int k) {
+            while (right > left) {
+                int pivotIndex = (left + right) >>> 1;
+                double pivot = index.coordinate(axis, pivotIndex);
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (index.coordinate(axis, i) < pivot) {
+                        i++;
+                    }
+                    while (index.coordinate(axis, j) > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    right = j;
+                } else if (k >= i) {
+                    left = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = index.ids[a];
+            index.ids[a] = index.ids[b];
+            index.ids[b] = id;
+            double x = index.xs[a];
+            index.xs[a] = index.xs[b];
+            index.xs[b] = x;
+            double y = index.ys[a];
+            index.ys[a] = index.ys[b];
+            index.ys[b] = y;
+            double z = index.zs[a];
+            index.zs[a] = index.zs[b];
+            index.zs[b] = z;
+        }
+    }
+}
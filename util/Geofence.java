@@ -0,0 +1,85 @@
+package com.chen.my_project.util;
+
+import java.util.BitSet;
+
+/**
+ * 围栏形状
+ *
+ * <pre>
+ * 所有实现类都应不可变，contains方法不应创建对象。
+ * 外接矩形用于空间索引的快速筛选，必须完整包含围栏。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public interface Geofence {
+
+    /**
+     * 判断点是否在围栏内
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @return
+     */
+    boolean contains(double lon, double lat);
+
+    /**
+     * 外接矩形最小经度
+     * @return
+     */
+    double getMinLon();
+
+    /**
+     * 外接矩形最小纬度
+     * @return
+     */
+    double getMinLat();
+
+    /**
+     * 外接矩形最大经度
+     * @return
+     */
+    double getMaxLon();
+
+    /**
+     * 外接矩形最大纬度
+     * @return
+     */
+    double getMaxLat();
+
+    /**
+     * 批量判断点是否在围栏内
+     *
+     * <pre>
+     * 第i个点在围栏内时设置out的第i位，否则清除该位。
+     * 调用方应按点数预先创建BitSet（new BitSet(n)），避免扩容。
+     * </pre>
+     * @param lons 要判断的纵坐标
+     * @param lats 要判断的横坐标，与lons长度相同
+     * @param out 判断结果
+     * @return 在围栏内的点数
+     */
+    default int containsAll(double[] lons, double[] lats, BitSet out) {
+        int n = checkBatch(lons, lats, out);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (contains(lons[i], lats[i])) {
+                out.set(i);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 校验批量参数并清空结果
+     * @return 点数
+     */
+    static int checkBatch(double[] lons, double[] lats, BitSet out) {
+        if (lons.length != lats.length) {
+            throw new IllegalArgumentException("lons and lats must have the same length");
+        }
+        out.clear(0, lons.length);
+        return lons.length;
+    }
+}
@@ -0,0 +1,386 @@
+package com.chen.my_project.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+
+/**
+ * 围栏进出事件处理器
+ *
+ * <pre>
+ * 按车辆依次消费定位点（vehicleId, timestamp, lon, lat），与上一次所在的围栏集合比较，产生进入、离开和停留事件。
+ * 每辆车只保存所在围栏ID的有序数组、进入时间和是否已触发停留事件，不保存历史轨迹。
+ * 车辆状态按vehicleId分段加锁，不同分段的车辆可在多个线程上并行处理，同一辆车的事件按时间顺序产生。
+ * 时间戳早于该车上一次定位的点视为乱序，直接丢弃。
+ *
+ * 处理期间围栏索引不能被修改，需要更新围栏时应由调用方暂停处理或替换处理器。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class GeofenceEventProcessor {
+
+    /**
+     * 事件类型
+     */
+    public enum EventType {
+        /** 进入围栏 */
+        ENTER,
+        /** 离开围栏 */
+        EXIT,
+        /** 在围栏内停留超过指定时间，每次进入只触发一次 */
+        DWELL
+    }
+
+    /**
+     * 事件回调，在分段锁内调用，实现应尽量轻量
+     */
+    public interface EventListener {
+
+        /**
+         * @param vehicleId 车辆ID
+         * @param fenceId 围栏ID
+         * @param type 事件类型
+         * @param timestamp 触发事件的定位时间
+         */
+        void onEvent(long vehicleId, long fenceId, EventType type, long timestamp);
+    }
+
+    private final GeofenceIndex index;
+
+    private final EventListener listener;
+
+    /** 停留时长（毫秒），小于等于0时不产生停留事件 */
+    private final long dwellMillis;
+
+    private final Segment[] segments;
+
+    private final int segmentMask;
+
+    /**
+     * @param index 围栏索引
+     * @param listener 事件回调
+     * @param dwellMillis 停留时长（毫秒），小于等于0时不产生停留事件
+     * @param concurrency 分段数，会向上取整为2的幂
+     * @author ChenDuochuang
+     */
+    public GeofenceEventProcessor(GeofenceIndex index, EventListener listener, long dwellMillis, int concurrency) {
+        this.index = index;
+        this.listener = listener;
+        this.dwellMillis = dwellMillis;
+        int size = Integer.highestOneBit(Math.max(1, concurrency - 1)) << 1;
+        this.segments = new Segment[size];
+        for (int i = 0; i < size; i++) {
+            segments[i] = new Segment();
+        }
+        this.segmentMask = size - 1;
+    }
+
+    /**
+     * 处理一个定位点
+     * @param vehicleId 车辆ID
+     * @param timestamp 定位时间（毫秒）
+     * @param lon 经度
+     * @param lat 纬度
+     * @return 乱序被丢弃时返回false
+     * @author ChenDuochuang
+     */
+    public boolean process(long vehicleId, long timestamp, double lon, double lat) {
+        Segment segment = segments[segmentOf(vehicleId)];
+        synchronized (segment) {
+            return segment.process(vehicleId, timestamp, lon, lat);
+        }
+    }
+
+    /**
+     * 批量处理定位点，同一辆车的点须按时间顺序排列
+     * @param vehicleIds 车辆ID
+     * @param timestamps 定位时间（毫秒）
+     * @param lons 经度
+     * @param lats 纬度
+     * @return 处理的点数（不含乱序丢弃的点）
+     * @author ChenDuochuang
+     */
+    public int processBatch(long[] vehicleIds, long[] timestamps, double[] lons, double[] lats) {
+        checkBatch(vehicleIds, timestamps, lons, lats);
+        int count = 0;
+        for (int i = 0; i < vehicleIds.length; i++) {
+            if (process(vehicleIds[i], timestamps[i], lons[i], lats[i])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 并行批量处理定位点，同一辆车的点须按时间顺序排列
+     *
+     * <pre>
+     * 按分段把车辆划分给各个任务，调用线程先把点的下标按任务分组（计数排序，O(N)），每个任务只遍历属于自己的点，
+     * 因此同一辆车的点始终在同一个任务中按原顺序处理，不同任务之间不竞争同一把锁。
+     * </pre>
+     * @param vehicleIds 车辆ID
+     * @param timestamps 定位时间（毫秒）
+     * @param lons 经度
+     * @param lats 纬度
+     * @param executor 执行任务的线程池
+     * @param parallelism 任务数
+     * @return 处理的点数（不含乱序丢弃的点）
+     * @throws InterruptedException
+     * @throws ExecutionException
+     * @author ChenDuochuang
+     */
+    public int processBatch(long[] vehicleIds, long[] timestamps, double[] lons, double[] lats,
+            ExecutorService executor, int parallelism) throws InterruptedException, ExecutionException {
+        checkBatch(vehicleIds, timestamps, lons, lats);
+        int tasks = Math.max(1, Math.min(parallelism, segments.length));
+        // 在调用线程上按任务计数排序点的下标，各任务只遍历自己的区间，保持原有顺序
+        int[] starts = new int[tasks + 1];
+        for (long vehicleId : vehicleIds) {
+            starts[segmentOf(vehicleId) % tasks + 1]++;
+        }
+        for (int t = 0; t < tasks; t++) {
+            starts[t + 1] += starts[t];
+        }
+        int[] order = new int[vehicleIds.length];
+        int[] next = Arrays.copyOf(starts, tasks);
+        for (int i = 0; i < vehicleIds.length; i++) {
+            order[next[segmentOf(vehicleIds[i]) % tasks]++] = i;
+        }
+        List<Future<Integer>> futures = new ArrayList<>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            final int from = starts[t];
+            final int to = starts[t + 1];
+            if (from == to) {
+                continue;
+            }
+            futures.add(executor.submit(() -> {
+                int count = 0;
+                for (int k = from; k < to; k++) {
+                    int i = order[k];
+                    if (process(vehicleIds[i], timestamps[i], lons[i], lats[i])) {
+                        count++;
+                    }
+                }
+                return count;
+            }));
+        }
+        int count = 0;
+        for (Future<Integer> future : futures) {
+            count += future.get();
+        }
+        return count;
+    }
+
+    /**
+     * 获取车辆当前所在的围栏
+     * @param vehicleId 车辆ID
+     * @return 围栏ID，升序
+     */
+    public long[] fencesOf(long vehicleId) {
+        Segment segment = segments[segmentOf(vehicleId)];
+        synchronized (segment) {
+            VehicleState state = segment.vehicles.get(vehicleId);
+            return state == null ? new long[0] : Arrays.copyOf(state.fenceIds, state.size);
+        }
+    }
+
+    /**
+     * 移除车辆状态，不产生离开事件
+     * @param vehicleId 车辆ID
+     */
+    public void removeVehicle(long vehicleId) {
+        Segment segment = segments[segmentOf(vehicleId)];
+        synchronized (segment) {
+            segment.vehicles.remove(vehicleId);
+        }
+    }
+
+    /**
+     * 清理长时间没有定位的车辆，不产生离开事件
+     * @param before 最后定位时间早于该时间的车辆将被清理
+     * @return 清理的车辆数
+     */
+    public int evictIdle(long before) {
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                LongArray idle = new LongArray();
+                segment.vehicles.forEach((vehicleId, state) -> {
+                    if (state.lastTimestamp < before) {
+                        idle.accept(vehicleId);
+                    }
+                });
+                for (int i = 0; i < idle.size; i++) {
+                    segment.vehicles.remove(idle.values[i]);
+                }
+                count += idle.size;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 当前保存状态的车辆数
+     * @return
+     */
+    public int vehicleCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                count += segment.vehicles.size();
+            }
+        }
+        return count;
+    }
+
+    private int segmentOf(long vehicleId) {
+        long h = vehicleId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & segmentMask;
+    }
+
+    private static void checkBatch(long[] vehicleIds, long[] timestamps, double[] lons, double[] lats) {
+        int n = vehicleIds.length;
+        if (timestamps.length != n || lons.length != n || lats.length != n) {
+            throw new IllegalArgumentException("vehicleIds, timestamps, lons and lats must have the same length");
+        }
+    }
+
+    /**
+     * 单辆车的状态
+     */
+    private static final class VehicleState {
+
+        private long lastTimestamp = Long.MIN_VALUE;
+
+        /** 所在围栏ID，升序 */
+        private long[] fenceIds = new long[2];
+
+        /** 进入各围栏的时间 */
+        private long[] enterTimes = new long[2];
+
+        /** 是否已触发停留事件，按位保存 */
+        private long[] dwellFired = new long[1];
+
+        private int size;
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > fenceIds.length) {
+                int length = Math.max(capacity, fenceIds.length << 1);
+                fenceIds = Arrays.copyOf(fenceIds, length);
+                enterTimes = Arrays.copyOf(enterTimes, length);
+                dwellFired = Arrays.copyOf(dwellFired, (length + 63) >>> 6);
+            }
+        }
+    }
+
+    /**
+     * 分段，持有该段车辆的状态以及处理时复用的临时数组
+     */
+    private final class Segment {
+
+        private final LongObjectHashMap<VehicleState> vehicles = new LongObjectHashMap<>();
+
+        /** 当前定位点所在的围栏 */
+        private final LongArray current = new LongArray();
+
+        /** 合并后的新状态 */
+        private long[] nextIds = new long[8];
+
+        private long[] nextEnterTimes = new long[8];
+
+        private long[] nextDwellFired = new long[1];
+
+        private boolean process(long vehicleId, long timestamp, double lon, double lat) {
+            VehicleState state = vehicles.get(vehicleId);
+            if (state == null) {
+                state = new VehicleState();
+                vehicles.put(vehicleId, state);
+            } else if (timestamp < state.lastTimestamp) {
+                return false;
+            }
+            state.lastTimestamp = timestamp;
+
+            current.size = 0;
+            index.forEachContaining(lon, lat, current);
+            Arrays.sort(current.values, 0, current.size);
+
+            long[] oldIds = state.fenceIds;
+            int oldSize = state.size;
+            long[] newIds = current.values;
+            int newSize = current.size;
+            ensureNextCapacity(newSize);
+            Arrays.fill(nextDwellFired, 0, (newSize + 63) >>> 6, 0L);
+
+            // 有序合并：只在旧集合中的为离开，只在新集合中的为进入，两者都有的判断停留
+            int i = 0;
+            int j = 0;
+            int k = 0;
+            while (i < oldSize || j < newSize) {
+                if (j == newSize || (i < oldSize && oldIds[i] < newIds[j])) {
+                    listener.onEvent(vehicleId, oldIds[i], EventType.EXIT, timestamp);
+                    i++;
+                } else if (i == oldSize || newIds[j] < oldIds[i]) {
+                    nextIds[k] = newIds[j];
+                    nextEnterTimes[k] = timestamp;
+                    listener.onEvent(vehicleId, newIds[j], EventType.ENTER, timestamp);
+                    k++;
+                    j++;
+                } else {
+                    nextIds[k] = newIds[j];
+                    nextEnterTimes[k] = state.enterTimes[i];
+                    boolean fired = (state.dwellFired[i >>> 6] & (1L << i)) != 0;
+                    if (!fired && dwellMillis > 0 && timestamp - state.enterTimes[i] >= dwellMillis) {
+                        listener.onEvent(vehicleId, newIds[j], EventType.DWELL, timestamp);
+                        fired = true;
+                    }
+                    if (fired) {
+                        nextDwellFired[k >>> 6] |= 1L << k;
+                    }
+                    k++;
+                    i++;
+                    j++;
+                }
+            }
+
+            state.ensureCapacity(k);
+            System.arraycopy(nextIds, 0, state.fenceIds, 0, k);
+            System.arraycopy(nextEnterTimes, 0, state.enterTimes, 0, k);
+            System.arraycopy(nextDwellFired, 0, state.dwellFired, 0, (k + 63) >>> 6);
+            state.size = k;
+            return true;
+        }
+
+        private void ensureNextCapacity(int capacity) {
+            if (capacity > nextIds.length) {
+                int length = Math.max(capacity, nextIds.length << 1);
+                nextIds = new long[length];
+                nextEnterTimes = new long[length];
+                nextDwellFired = new long[(length + 63) >>> 6];
+            }
+        }
+    }
+
+    /**
+     * 可复用的long数组
+     */
+    private static final class LongArray implements LongConsumer {
+
+        private long[] values = new long[8];
+
+        private int size;
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
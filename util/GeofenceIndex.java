@@ -0,0 +1,344 @@
+package com.chen.my_project.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * 围栏空间索引，用于查找包含某个点的所有围栏
+ *
+ * <pre>
+ * 采用多级网格：每个围栏按外接矩形放入格子数不超过maxCellsPerFence的最细一级网格，
+ * 查询时每一级只需定位一个格子，再对格子内的围栏做精确判断，与围栏总数无关。
+ * 超出最粗一级网格的超大围栏单独保存，查询时逐个用外接矩形筛选。
+ *
+ * 查询过程不创建对象，可多线程并发查询；添加和删除需要调用方保证与查询互斥。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class GeofenceIndex {
+
+    /** 默认最细一级网格大小（度），约5公里 */
+    public static final double DEFAULT_CELL_SIZE = 0.05;
+
+    /** 默认每个围栏最多占用的格子数 */
+    public static final int DEFAULT_MAX_CELLS_PER_FENCE = 16;
+
+    /** 网格级数 */
+    private static final int LEVELS = 3;
+
+    /** 相邻两级网格大小的倍数 */
+    private static final int LEVEL_RATIO = 16;
+
+    /** 每一级网格的格子大小（度） */
+    private final double[] cellSizes = new double[LEVELS];
+
+    /** 每一级网格：格子编号 -> 格子 */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private final LongObjectHashMap<Cell>[] grids = new LongObjectHashMap[LEVELS];
+
+    /** 超大围栏 */
+    private final Cell oversized = new Cell();
+
+    /** 围栏ID -> 围栏 */
+    private final LongObjectHashMap<Entry> entries;
+
+    private final int maxCellsPerFence;
+
+    public GeofenceIndex() {
+        this(DEFAULT_CELL_SIZE, DEFAULT_MAX_CELLS_PER_FENCE, 16);
+    }
+
+    /**
+     * @param cellSize 最细一级网格大小（度）
+     * @param maxCellsPerFence 每个围栏最多占用的格子数
+     * @param expectedSize 预计围栏数量
+     * @author ChenDuochuang
+     */
+    public GeofenceIndex(double cellSize, int maxCellsPerFence, int expectedSize) {
+        if (cellSize <= 0 || maxCellsPerFence < 1) {
+            throw new IllegalArgumentException("Illegal cellSize or maxCellsPerFence");
+        }
+        this.maxCellsPerFence = maxCellsPerFence;
+        double size = cellSize;
+        for (int i = 0; i < LEVELS; i++) {
+            cellSizes[i] = size;
+            grids[i] = new LongObjectHashMap<>(Math.max(16, expectedSize / (i + 1)));
+            size *= LEVEL_RATIO;
+        }
+        this.entries = new LongObjectHashMap<>(expectedSize);
+    }
+
+    /**
+     * 批量创建索引
+     * @param fences 围栏ID -> 围栏
+     * @return
+     * @author ChenDuochuang
+     */
+    public static GeofenceIndex build(Map<Long, ? extends Geofence> fences) {
+        GeofenceIndex index = new GeofenceIndex(DEFAULT_CELL_SIZE, DEFAULT_MAX_CELLS_PER_FENCE, fences.size());
+        for (Map.Entry<Long, ? extends Geofence> fence : fences.entrySet()) {
+            index.add(fence.getKey(), fence.getValue());
+        }
+        return index;
+    }
+
+    /**
+     * 添加围栏，ID已存在时替换原围栏
+     * @param id 围栏ID
+     * @param fence 围栏
+     * @author ChenDuochuang
+     */
+    public void add(long id, Geofence fence) {
+        remove(id);
+        Entry entry = new Entry(id, fence);
+        entries.put(id, entry);
+
+        for (int level = 0; level < LEVELS; level++) {
+            double size = cellSizes[level];
+            long minX = cell(fence.getMinLon(), size);
+            long maxX = cell(fence.getMaxLon(), size);
+            long minY = cell(fence.getMinLat(), size);
+            long maxY = cell(fence.getMaxLat(), size);
+            if ((maxX - minX + 1) * (maxY - minY + 1) > maxCellsPerFence) {
+                continue;
+            }
+            entry.level = level;
+            for (long x = minX; x <= maxX; x++) {
+                for (long y = minY; y <= maxY; y++) {
+                    long key = key(x, y);
+                    Cell cell = grids[level].get(key);
+                    if (cell == null) {
+                        cell = new Cell();
+                        grids[level].put(key, cell);
+                    }
+                    cell.add(entry);
+                }
+            }
+            return;
+        }
+
+        entry.level = LEVELS;
+        oversized.add(entry);
+    }
+
+    /**
+     * 批量添加围栏
+     * @param ids 围栏ID
+     * @param fences 围栏，与ids一一对应
+     * @author ChenDuochuang
+     */
+    public void addAll(long[] ids, Collection<? extends Geofence> fences) {
+        if (ids.length != fences.size()) {
+            throw new IllegalArgumentException("ids and fences must have the same size");
+        }
+        int i = 0;
+        for (Geofence fence : fences) {
+            add(ids[i++], fence);
+        }
+    }
+
+    /**
+     * 删除围栏
+     * @param id 围栏ID
+     * @return 是否删除成功
+     * @author ChenDuochuang
+     */
+    public boolean remove(long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return false;
+        }
+        if (entry.level == LEVELS) {
+            oversized.remove(entry);
+            return true;
+        }
+
+        Geofence fence = entry.fence;
+        double size = cellSizes[entry.level];
+        LongObjectHashMap<Cell> grid = grids[entry.level];
+        for (long x = cell(fence.getMinLon(), size), maxX = cell(fence.getMaxLon(), size); x <= maxX; x++) {
+            for (long y = cell(fence.getMinLat(), size), maxY = cell(fence.getMaxLat(), size); y <= maxY; y++) {
+                long key = key(x, y);
+                Cell cell = grid.get(key);
+                if (cell != null && cell.remove(entry) && cell.size == 0) {
+                    grid.remove(key);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 获取围栏
+     * @param id 围栏ID
+     * @return 不存在时返回null
+     */
+    public Geofence get(long id) {
+        Entry entry = entries.get(id);
+        return entry == null ? null : entry.fence;
+    }
+
+    /**
+     * 围栏数量
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 遍历包含该点的所有围栏ID，不创建对象
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @param consumer 围栏ID回调
+     * @return 包含该点的围栏数量
+     * @author ChenDuochuang
+     */
+    public int forEachContaining(double lon, double lat, LongConsumer consumer) {
+        int count = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            double size = cellSizes[level];
+            Cell cell = grids[level].get(key(cell(lon, size), cell(lat, size)));
+            if (cell != null) {
+                count += cell.forEachContaining(lon, lat, consumer);
+            }
+        }
+        if (oversized.size > 0) {
+            count += oversized.forEachContaining(lon, lat, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * 查询包含该点的所有围栏ID
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @return 围栏ID，没有时返回空数组
+     * @author ChenDuochuang
+     */
+    public long[] query(double lon, double lat) {
+        LongCollector collector = new LongCollector();
+        forEachContaining(lon, lat, collector);
+        return collector.toArray();
+    }
+
+    /**
+     * 判断点是否在任意一个围栏内
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @return
+     */
+    public boolean containsAny(double lon, double lat) {
+        for (int level = 0; level < LEVELS; level++) {
+            double size = cellSizes[level];
+            Cell cell = grids[level].get(key(cell(lon, size), cell(lat, size)));
+            if (cell != null && cell.containsAny(lon, lat)) {
+                return true;
+            }
+        }
+        return oversized.size > 0 && oversized.containsAny(lon, lat);
+    }
+
+    private static long cell(double value, double size) {
+        return (long) Math.floor(value / size);
+    }
+
+    private static long key(long x, long y) {
+        return (x << 32) ^ (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 索引中的围栏
+     */
+    private static final class Entry {
+
+        private final long id;
+
+        private final Geofence fence;
+
+        /** 所在网格级数，等于LEVELS时表示超大围栏 */
+        private int level;
+
+        private Entry(long id, Geofence fence) {
+            this.id = id;
+            this.fence = fence;
+        }
+    }
+
+    /**
+     * 格子，保存与其相交的围栏
+     */
+    private static final class Cell {
+
+        private Entry[] entries = new Entry[4];
+
+        private int size;
+
+        private void add(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size << 1);
+            }
+            entries[size++] = entry;
+        }
+
+        private boolean remove(Entry entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] == entry) {
+                    entries[i] = entries[--size];
+                    entries[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int forEachContaining(double lon, double lat, LongConsumer consumer) {
+            int count = 0;
+            Entry[] local = entries;
+            for (int i = 0, n = size; i < n; i++) {
+                Geofence fence = local[i].fence;
+                if (fence.contains(lon, lat)) {
+                    consumer.accept(local[i].id);
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private boolean containsAny(double lon, double lat) {
+            Entry[] local = entries;
+            for (int i = 0, n = size; i < n; i++) {
+                if (local[i].fence.contains(lon, lat)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 收集围栏ID
+     */
+    private static final class LongCollector implements LongConsumer {
+
+        private long[] values = new long[4];
+
+        private int size;
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
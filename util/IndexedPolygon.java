@@ -0,0 +1,269 @@
+package com.chen.my_project.util;
+
+import java.util.Arrays;
+
+/**
+ * 预处理的大型多边形围栏，适用于行政区划等顶点数很多的围栏
+ *
+ * <pre>
+ * 按纬度把外接矩形切分成若干水平条带，每条边登记到它跨越的条带中（条带内按边的最大经度降序排列）。
+ * 判断时只需定位点所在的条带，扫描该条带中位于点右侧的边做射线法计数，
+ * 单次判断的代价与条带内的边数相关，而与多边形总顶点数无关。
+ *
+ * 支持多个环：多个环之间使用分号分隔，例如："lon1,lat1,lon2,lat2...;lon1,lat1..."，
+ * 采用奇偶规则，因此既可以表示多个不相交的多边形，也可以表示带洞的多边形（洞作为独立的环给出）。
+ * 构造完成后不可变，可在多线程间共享。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class IndexedPolygon implements Geofence {
+
+    /** 平均每个条带包含的边数 */
+    private static final int EDGES_PER_BUCKET = 4;
+
+    /** 外接矩形 */
+    private final double minLon;
+    private final double minLat;
+    private final double maxLon;
+    private final double maxLat;
+
+    /** 条带数量和高度 */
+    private final int bucketCount;
+    private final double bucketHeight;
+
+    /** 第i个条带的边在边数组中的区间为[bucketStarts[i], bucketStarts[i + 1]) */
+    private final int[] bucketStarts;
+
+    /** 按条带顺序展开的边，y1 < y2 */
+    private final double[] x1s;
+    private final double[] y1s;
+    private final double[] x2s;
+    private final double[] y2s;
+
+    /** 边的最大经度，用于跳过点左侧的边 */
+    private final double[] maxXs;
+
+    /** 环的数量和总顶点数 */
+    private final int ringCount;
+    private final int vertexCount;
+
+    /**
+     * 根据多个环创建多边形
+     * @param ringLons 每个环的顶点经度
+     * @param ringLats 每个环的顶点纬度
+     * @author ChenDuochuang
+     */
+    public IndexedPolygon(double[][] ringLons, double[][] ringLats) {
+        if (ringLons.length != ringLats.length || ringLons.length == 0) {
+            throw new IllegalArgumentException("Illegal polygon, at least 1 ring is required");
+        }
+
+        // 收集非水平边，并计算外接矩形
+        int edgeCapacity = 0;
+        for (int r = 0; r < ringLons.length; r++) {
+            if (ringLons[r].length != ringLats[r].length || ringLons[r].length < 3) {
+                throw new IllegalArgumentException("Illegal ring " + r + ", at least 3 vertices are required");
+            }
+            edgeCapacity += ringLons[r].length;
+        }
+        double[] ex1 = new double[edgeCapacity];
+        double[] ey1 = new double[edgeCapacity];
+        double[] ex2 = new double[edgeCapacity];
+        double[] ey2 = new double[edgeCapacity];
+        int edgeCount = 0;
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < ringLons.length; r++) {
+            double[] lons = ringLons[r];
+            double[] lats = ringLats[r];
+            int n = lons.length;
+            for (int i = 0; i < n; i++) {
+                minX = Math.min(minX, lons[i]);
+                maxX = Math.max(maxX, lons[i]);
+                minY = Math.min(minY, lats[i]);
+                maxY = Math.max(maxY, lats[i]);
+                int j = (i + 1) % n;
+                if (lats[i] == lats[j]) {
+                    continue;
+                }
+                boolean upward = lats[i] < lats[j];
+                ex1[edgeCount] = upward ? lons[i] : lons[j];
+                ey1[edgeCount] = upward ? lats[i] : lats[j];
+                ex2[edgeCount] = upward ? lons[j] : lons[i];
+                ey2[edgeCount] = upward ? lats[j] : lats[i];
+                edgeCount++;
+            }
+        }
+        this.minLon = minX;
+        this.minLat = minY;
+        this.maxLon = maxX;
+        this.maxLat = maxY;
+        this.ringCount = ringLons.length;
+        this.vertexCount = edgeCapacity;
+
+        this.bucketCount = Math.max(1, edgeCount / EDGES_PER_BUCKET);
+        double height = (maxY - minY) / bucketCount;
+        this.bucketHeight = height > 0 ? height : 1;
+
+        // 第一遍统计每个条带的边数，第二遍填充
+        int[] counts = new int[bucketCount + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            for (int b = bucketOf(ey1[e]), last = bucketOf(ey2[e]); b <= last; b++) {
+                counts[b + 1]++;
+            }
+        }
+        for (int b = 0; b < bucketCount; b++) {
+            counts[b + 1] += counts[b];
+        }
+        this.bucketStarts = counts.clone();
+        int total = counts[bucketCount];
+        int[] order = new int[total];
+        int[] cursor = Arrays.copyOf(counts, bucketCount);
+        for (int e = 0; e < edgeCount; e++) {
+            for (int b = bucketOf(ey1[e]), last = bucketOf(ey2[e]); b <= last; b++) {
+                order[cursor[b]++] = e;
+            }
+        }
+
+        this.x1s = new double[total];
+        this.y1s = new double[total];
+        this.x2s = new double[total];
+        this.y2s = new double[total];
+        this.maxXs = new double[total];
+        for (int b = 0; b < bucketCount; b++) {
+            int from = bucketStarts[b];
+            int to = bucketStarts[b + 1];
+            sortByMaxXDescending(order, from, to, ex1, ex2);
+            for (int i = from; i < to; i++) {
+                int e = order[i];
+                x1s[i] = ex1[e];
+                y1s[i] = ey1[e];
+                x2s[i] = ex2[e];
+                y2s[i] = ey2[e];
+                maxXs[i] = Math.max(ex1[e], ex2[e]);
+            }
+        }
+    }
+
+    /**
+     * 解析坐标串创建多边形
+     * @param pointInfo 坐标点的字符串，环内用逗号分隔，环之间用分号分隔， 例如："lon1,lat1,lon2,lat2...;lon1,lat1..."
+     * @return
+     * @author ChenDuochuang
+     */
+    public static IndexedPolygon parse(String pointInfo) {
+        String[] rings = pointInfo.split(";");
+        double[][] ringLons = new double[rings.length][];
+        double[][] ringLats = new double[rings.length][];
+        for (int r = 0; r < rings.length; r++) {
+            String[] pointArr = rings[r].split(",");
+            if (pointArr.length % 2 != 0) {
+                throw new IllegalArgumentException("Illegal polygon point info in ring " + r);
+            }
+            int size = pointArr.length / 2;
+            ringLons[r] = new double[size];
+            ringLats[r] = new double[size];
+            for (int i = 0; i < size; i++) {
+                ringLons[r][i] = Double.parseDouble(pointArr[2 * i].trim());
+                ringLats[r][i] = Double.parseDouble(pointArr[2 * i + 1].trim());
+            }
+        }
+
+        return new IndexedPolygon(ringLons, ringLats);
+    }
+
+    /**
+     * 判断点是否在多边形内（奇偶规则）
+     * @param lon 要判断的纵坐标
+     * @param lat 要判断的横坐标
+     * @return
+     * @author ChenDuochuang
+     */
+    @Override
+    public boolean contains(double lon, double lat) {
+        if (lon < minLon || lon > maxLon || lat < minLat || lat > maxLat) {
+            return false;
+        }
+
+        int b = bucketOf(lat);
+        boolean inside = false;
+        for (int i = bucketStarts[b], end = bucketStarts[b + 1]; i < end; i++) {
+            // 条带内的边按最大经度降序排列，之后的边都在点的左侧，不会与向右的射线相交
+            if (maxXs[i] < lon) {
+                break;
+            }
+            double y1 = y1s[i];
+            double y2 = y2s[i];
+            if (y1 <= lat && lat < y2) {
+                double x = x1s[i] + (lat - y1) * (x2s[i] - x1s[i]) / (y2 - y1);
+                if (x > lon) {
+                    inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    private int bucketOf(double lat) {
+        int b = (int) ((lat - minLat) / bucketHeight);
+        return b < 0 ? 0 : b >= bucketCount ? bucketCount - 1 : b;
+    }
+
+    /**
+     * 条带内按边的最大经度降序排序
+     */
+    private static void sortByMaxXDescending(int[] order, int from, int to, double[] ex1, double[] ex2) {
+        int length = to - from;
+        if (length < 2) {
+            return;
+        }
+        Integer[] sorted = new Integer[length];
+        for (int i = 0; i < length; i++) {
+            sorted[i] = order[from + i];
+        }
+        Arrays.sort(sorted, (a, c) -> Double.compare(Math.max(ex1[c], ex2[c]), Math.max(ex1[a], ex2[a])));
+        for (int i = 0; i < length; i++) {
+            order[from + i] = sorted[i];
+        }
+    }
+
+    /**
+     * 环的数量
+     * @return
+     */
+    public int getRingCount() {
+        return ringCount;
+    }
+
+    /**
+     * 总顶点数
+     * @return
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    @Override
+    public double getMinLon() {
+        return minLon;
+    }
+
+    @Override
+    public double getMinLat() {
+        return minLat;
+    }
+
+    @Override
+    public double getMaxLon() {
+        return maxLon;
+    }
+
+    @Override
+    public double getMaxLat() {
+        return maxLat;
+    }
+}
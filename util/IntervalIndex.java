@@ -0,0 +1,398 @@
+package com.chen.my_project.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * 闭区间索引，用于在大量时间段中查找重叠
+ *
+ * <pre>
+ * 区间可以是当天的分钟数，也可以是毫秒级时间戳，两个区间[s1, e1]、[s2, e2]满足 s1 <= e2 且 e1 >= s2 时视为重叠，
+ * 与DataUtils.isTimeOverLap的判断一致。
+ *
+ * 区间按开始值排序保存在数组中，并在其上建立隐式的线段树记录子区间的最大结束值：
+ * 开始值不大于查询结束值的区间是数组的一个前缀，在前缀中沿线段树只进入最大结束值不小于查询开始值的分支，
+ * 查询的代价为O(log n + k)量级，k为结果数量。
+ * 添加区间后不立即排序，下一次查询时统一重建，因此批量添加的代价为O(n log n)。
+ *
+ * 非线程安全；添加完成后调用build()，之后可在多线程间并发查询。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class IntervalIndex {
+
+    /** 一天的分钟数，24:00记为1440 */
+    private static final int MINUTES_PER_DAY = 1440;
+
+    /** 排序时改用插入排序的长度 */
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    /**
+     * 重叠区间对回调
+     */
+    public interface PairConsumer {
+
+        /**
+         * @param id1 区间ID
+         * @param id2 区间ID
+         */
+        void accept(long id1, long id2);
+    }
+
+    private long[] ids = new long[16];
+
+    private long[] starts = new long[16];
+
+    private long[] ends = new long[16];
+
+    private int size;
+
+    /** 线段树，叶子为ends，内部节点为子树的最大结束值 */
+    private long[] maxEnds = new long[0];
+
+    private int leafOffset;
+
+    /** 添加区间后需要重建 */
+    private boolean dirty;
+
+    /**
+     * 添加区间
+     * @param id 区间ID，可以重复，重复的ID在查询结果中只出现一次
+     * @param start 开始值（含）
+     * @param end 结束值（含）
+     * @author ChenDuochuang
+     */
+    public void add(long id, long start, long end) {
+        if (start > end) {
+            throw new IllegalArgumentException("Illegal interval: " + start + "-" + end);
+        }
+        if (size == ids.length) {
+            int capacity = size << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        ids[size] = id;
+        starts[size] = start;
+        ends[size] = end;
+        size++;
+        dirty = true;
+    }
+
+    /**
+     * 添加每天的时间段，开始时间晚于结束时间时视为跨越零点，拆分为两个区间
+     * @param id 区间ID
+     * @param startMinute 开始时间，当天的分钟数，0-1440
+     * @param endMinute 结束时间，当天的分钟数，0-1440
+     * @author ChenDuochuang
+     */
+    public void addMinuteWindow(long id, int startMinute, int endMinute) {
+        checkMinuteWindow(startMinute, endMinute);
+        if (startMinute <= endMinute) {
+            add(id, startMinute, endMinute);
+        } else {
+            add(id, startMinute, MINUTES_PER_DAY);
+            add(id, 0, endMinute);
+        }
+    }
+
+    /**
+     * 查询与[start, end]重叠的区间
+     * @param start 开始值（含）
+     * @param end 结束值（含）
+     * @return 区间ID，升序且不重复
+     * @author ChenDuochuang
+     */
+    public long[] overlapping(long start, long end) {
+        LongArray result = new LongArray();
+        forEachOverlapping(start, end, result);
+        return result.toSortedDistinct();
+    }
+
+    /**
+     * 查询与每天的时间段重叠的区间，开始时间晚于结束时间时视为跨越零点
+     * @param startMinute 开始时间，当天的分钟数，0-1440
+     * @param endMinute 结束时间，当天的分钟数，0-1440
+     * @return 区间ID，升序且不重复
+     * @author ChenDuochuang
+     */
+    public long[] overlappingMinuteWindow(int startMinute, int endMinute) {
+        checkMinuteWindow(startMinute, endMinute);
+        LongArray result = new LongArray();
+        if (startMinute <= endMinute) {
+            forEachOverlapping(startMinute, endMinute, result);
+        } else {
+            forEachOverlapping(startMinute, MINUTES_PER_DAY, result);
+            forEachOverlapping(0, endMinute, result);
+        }
+        return result.toSortedDistinct();
+    }
+
+    /**
+     * 遍历与[start, end]重叠的区间，拆分过的时间段可能被回调多次
+     * @param start 开始值（含）
+     * @param end 结束值（含）
+     * @param consumer 区间ID回调
+     * @author ChenDuochuang
+     */
+    public void forEachOverlapping(long start, long end, LongConsumer consumer) {
+        build();
+        // 开始值不大于end的区间为前缀[0, prefix)
+        int prefix = upperBound(starts, size, end);
+        if (prefix > 0) {
+            collect(1, 0, leafOffset, prefix, start, consumer);
+        }
+    }
+
+    /**
+     * 遍历所有重叠的区间对，按开始值扫描，耗时O(n log n + k)
+     *
+     * <pre>
+     * ID相同的区间（例如跨零点拆分的两部分）之间不回调；拆分过的时间段与同一区间可能回调多次。
+     * </pre>
+     * @param consumer 回调，id1所在区间的开始值不大于id2所在区间
+     * @author ChenDuochuang
+     */
+    public void forEachOverlappingPair(PairConsumer consumer) {
+        build();
+        // 按结束值排序的最小堆，保存与当前区间可能重叠的区间
+        int[] active = new int[16];
+        int activeSize = 0;
+        for (int i = 0; i < size; i++) {
+            while (activeSize > 0 && ends[active[0]] < starts[i]) {
+                active[0] = active[--activeSize];
+                siftDown(active, activeSize, 0);
+            }
+            for (int a = 0; a < activeSize; a++) {
+                long other = ids[active[a]];
+                if (other != ids[i]) {
+                    consumer.accept(other, ids[i]);
+                }
+            }
+            if (activeSize == active.length) {
+                active = Arrays.copyOf(active, activeSize << 1);
+            }
+            active[activeSize] = i;
+            siftUp(active, activeSize++);
+        }
+    }
+
+    /**
+     * 所有重叠的区间对
+     * @return 依次为每对的两个ID，每对中较小的在前，按对升序且不重复
+     * @author ChenDuochuang
+     */
+    public long[] overlappingPairs() {
+        LongArray firsts = new LongArray();
+        LongArray seconds = new LongArray();
+        forEachOverlappingPair((id1, id2) -> {
+            firsts.accept(Math.min(id1, id2));
+            seconds.accept(Math.max(id1, id2));
+        });
+
+        int count = firsts.size;
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        long[] a = firsts.values;
+        long[] b = seconds.values;
+        Arrays.sort(order, (x, y) -> a[x] != a[y] ? Long.compare(a[x], a[y]) : Long.compare(b[x], b[y]));
+
+        long[] pairs = new long[count * 2];
+        int k = 0;
+        for (int i = 0; i < count; i++) {
+            int p = order[i];
+            if (k > 0 && pairs[k - 2] == a[p] && pairs[k - 1] == b[p]) {
+                continue;
+            }
+            pairs[k++] = a[p];
+            pairs[k++] = b[p];
+        }
+        return Arrays.copyOf(pairs, k);
+    }
+
+    /**
+     * 按开始值排序并重建线段树，添加区间后的首次查询会自动调用
+     * @author ChenDuochuang
+     */
+    public void build() {
+        if (!dirty) {
+            return;
+        }
+        sortByStart(0, size);
+        int leaves = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+        long[] tree = new long[leaves << 1];
+        Arrays.fill(tree, Long.MIN_VALUE);
+        System.arraycopy(ends, 0, tree, leaves, size);
+        for (int node = leaves - 1; node > 0; node--) {
+            tree[node] = Math.max(tree[node << 1], tree[(node << 1) + 1]);
+        }
+        maxEnds = tree;
+        leafOffset = leaves;
+        dirty = false;
+    }
+
+    /**
+     * 区间数量（跨零点的时间段计为2个）
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 在节点node（覆盖数组下标[low, high)）中收集下标小于prefix且结束值不小于start的区间
+     */
+    private void collect(int node, int low, int high, int prefix, long start, LongConsumer consumer) {
+        if (low >= prefix || maxEnds[node] < start) {
+            return;
+        }
+        if (node >= leafOffset) {
+            consumer.accept(ids[node - leafOffset]);
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        collect(node << 1, low, mid, prefix, start, consumer);
+        collect((node << 1) + 1, mid, high, prefix, start, consumer);
+    }
+
+    /**
+     * 第一个大于key的位置
+     */
+    private static int upperBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static void checkMinuteWindow(int startMinute, int endMinute) {
+        if (startMinute < 0 || startMinute > MINUTES_PER_DAY || endMinute < 0 || endMinute > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Illegal time window: " + startMinute + "-" + endMinute);
+        }
+    }
+
+    /**
+     * 按开始值对三个并列数组快速排序，不创建额外对象
+     */
+    private void sortByStart(int low, int high) {
+        while (high - low > INSERTION_SORT_THRESHOLD) {
+            long a = starts[low];
+            long b = starts[(low + high) >>> 1];
+            long c = starts[high - 1];
+            long pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            int i = low;
+            int j = high - 1;
+            while (i <= j) {
+                while (starts[i] < pivot) {
+                    i++;
+                }
+                while (starts[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // 递归处理较短的一侧，较长的一侧继续循环，递归深度不超过log n
+            if (j - low < high - i) {
+                sortByStart(low, j + 1);
+                low = i;
+            } else {
+                sortByStart(i, high);
+                high = j + 1;
+            }
+        }
+        for (int i = low + 1; i < high; i++) {
+            for (int j = i; j > low && starts[j - 1] > starts[j]; j--) {
+                swap(j - 1, j);
+            }
+        }
+    }
+
+    private void swap(int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        long start = starts[i];
+        starts[i] = starts[j];
+        starts[j] = start;
+        long end = ends[i];
+        ends[i] = ends[j];
+        ends[j] = end;
+    }
+
+    private void siftUp(int[] heap, int i) {
+        int index = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (ends[heap[parent]] <= ends[index]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = index;
+    }
+
+    private void siftDown(int[] heap, int length, int i) {
+        if (i >= length) {
+            return;
+        }
+        int index = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= length) {
+                break;
+            }
+            if (child + 1 < length && ends[heap[child + 1]] < ends[heap[child]]) {
+                child++;
+            }
+            if (ends[heap[child]] >= ends[index]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = index;
+    }
+
+    /**
+     * 可增长的long数组
+     */
+    private static final class LongArray implements LongConsumer {
+
+        private long[] values = new long[8];
+
+        private int size;
+
+        @Override
+        public void accept(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = value;
+        }
+
+        private long[] toSortedDistinct() {
+            Arrays.sort(values, 0, size);
+            int k = 0;
+            for (int i = 0; i < size; i++) {
+                if (k == 0 || values[i] != values[k - 1]) {
+                    values[k++] = values[i];
+                }
+            }
+            return Arrays.copyOf(values, k);
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package com.mx.server.tsp.cockpit.plan.common;
 
-import java.util.Date;
-import java.util.GregorianCalendar;
+import java.time.LocalDate;
 
 /**
  * 工具类，实现阴阳历互转，支持1900-2099年期间
@@ -19,10 +18,6 @@ public class LunarCalendarUtil {
      */
     public static final int MAX_YEAR = 2099;
 
-    /**
-     * 公历每月前的天数
-     */
-    private static final int[] DAYS_BEFORE_MONTH = { 0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365 };
     /**
      * 用来表示1900年到2099年间农历年份的相关信息，共24位bit的16进制表示，其中： 1. 前4位表示该年闰哪个月； 2. 5-17位表示农历年份13个月的大小月分布，0表示小，1表示大； 3. 最后7位表示农历年首（正月初一）对应的公历日期。 以2014年的数据0x955ABF为例说明： 1001 0101 0101 1010 1011 1111 闰九月 农历正月初一对应公历1月31号
      */
@@ -72,140 +67,240 @@ public class LunarCalendarUtil {
 
     /**
      * 将农历日期转换为公历日期
+     *
+     * <pre>
+     * 当month为该年的闰月月份时，按闰月计算。
+     * </pre>
      * @param dateStr 格式：yyyy-MM-dd
      * @return 返回农历日期对应的公历日期
      */
     public static final String lunarToSolar(String dateStr) {
-
-        int year = Integer.parseInt(dateStr.split("-")[0]);
-        int month = Integer.parseInt(dateStr.split("-")[1]);
-        int monthDay = Integer.parseInt(dateStr.split("-")[2]);
-        int dayOffset;
-        int leapMonth;
-        int i;
-        // 是否闰月
-        boolean isLeapMonth = checkLeapMonth(year, month);
+        int firstDash = dateStr.indexOf('-');
+        int secondDash = dateStr.indexOf('-', firstDash + 1);
+        int year = parseInt(dateStr, 0, firstDash);
+        int month = parseInt(dateStr, firstDash + 1, secondDash);
+        int monthDay = parseInt(dateStr, secondDash + 1, dateStr.length());
 
         if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || monthDay < 1 || monthDay > 30) {
             throw new IllegalArgumentException("Illegal lunar date, must be like that:\n\t" + "year : 1900~2099\n\t"
                     + "month : 1~12\n\t" + "day : 1~30");
         }
-        dayOffset = (LUNAR_INFO[year - MIN_YEAR] & 0x001F) - 1;
-        if (((LUNAR_INFO[year - MIN_YEAR] & 0x0060) >> 5) == 2) {
-            dayOffset += 31;
+        // 是否闰月
+        boolean isLeapMonth = checkLeapMonth(year, month);
+        long epochDay = LunarTable.lunarToEpochDay(year, month, isLeapMonth, monthDay);
+
+        return formatEpochDay(epochDay);
+    }
+
+    /**
+     * 将公历日期转换为农历日期
+     *
+     * <pre>
+     * 返回结果中不区分闰月，闰月按月份本身返回。
+     * </pre>
+     * @param dateStr 格式：yyyy-MM-dd
+     * @return 返回公历日期对应的农历日期
+     */
+    public static final String solarToLunar(String dateStr) {
+        int firstDash = dateStr.indexOf('-');
+        int secondDash = dateStr.indexOf('-', firstDash + 1);
+        int year = parseInt(dateStr, 0, firstDash);
+        int month = parseInt(dateStr, firstDash + 1, secondDash);
+        int monthDay = parseInt(dateStr, secondDash + 1, dateStr.length());
+
+        int lunar = toLunar(toEpochDay(year, month, monthDay));
+        return LunarDate.year(lunar) + "-" + LunarDate.month(lunar) + '-' + LunarDate.day(lunar);
+    }
+
+    /**
+     * 将公历日期转换为农历日期，不创建对象
+     * @param epochDay 公历日期距1970-01-01的天数
+     * @return 农历日期的压缩形式，参见{@link LunarDate#pack(int, int, boolean, int)}
+     * @author ChenDuochuang
+     */
+    public static int toLunar(long epochDay) {
+        return LunarTable.epochDayToLunar(epochDay);
+    }
+
+    /**
+     * 将公历日期转换为农历日期，不创建对象
+     * @param date 公历日期
+     * @return 农历日期的压缩形式，参见{@link LunarDate#pack(int, int, boolean, int)}
+     * @author ChenDuochuang
+     */
+    public static int toLunar(LocalDate date) {
+        return LunarTable.epochDayToLunar(toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+    }
+
+    /**
+     * 将公历日期转换为农历日期
+     * @param date 公历日期
+     * @return
+     * @author ChenDuochuang
+     */
+    public static LunarDate toLunarDate(LocalDate date) {
+        return LunarDate.of(toLunar(date));
+    }
+
+    /**
+     * 将农历日期转换为公历日期，不创建对象
+     * @param year 农历年
+     * @param month 农历月
+     * @param leap 是否闰月，该年没有此闰月时抛出IllegalArgumentException
+     * @param day 农历日，超出当月天数时抛出IllegalArgumentException
+     * @return 公历日期距1970-01-01的天数
+     * @author ChenDuochuang
+     */
+    public static long toSolar(int year, int month, boolean leap, int day) {
+        if (year < MIN_YEAR || year > MAX_YEAR || month < 1 || month > 12 || day < 1
+                || (leap && leapMonth(year) != month) || day > daysInMonth(year, month, leap)) {
+            throw new IllegalArgumentException("Illegal lunar date: " + year + (leap ? "-闰" : "-") + month + "-" + day);
         }
-        for (i = 1; i < month; i++) {
-            if ((LUNAR_INFO[year - MIN_YEAR] & (0x80000 >> (i - 1))) == 0) {
-                dayOffset += 29;
-            } else {
-                dayOffset += 30;
+        return LunarTable.lunarToEpochDay(year, month, leap, day);
+    }
+
+    /**
+     * 将农历日期转换为公历日期，不创建对象
+     * @param packedLunar 农历日期的压缩形式
+     * @return 公历日期距1970-01-01的天数
+     * @author ChenDuochuang
+     */
+    public static long toSolar(int packedLunar) {
+        return toSolar(LunarDate.year(packedLunar), LunarDate.month(packedLunar), LunarDate.isLeap(packedLunar),
+                LunarDate.day(packedLunar));
+    }
+
+    /**
+     * 将农历日期转换为公历日期
+     * @param lunarDate 农历日期
+     * @return
+     * @author ChenDuochuang
+     */
+    public static LocalDate toSolar(LunarDate lunarDate) {
+        return LocalDate.ofEpochDay(toSolar(lunarDate.getYear(), lunarDate.getMonth(), lunarDate.isLeap(),
+                lunarDate.getDay()));
+    }
+
+    /**
+     * 农历日期查找表，首次使用时创建
+     *
+     * <pre>
+     * DAYS：从1900年正月初一（公历1900-01-31）起每天一项，保存农历日期的压缩形式；
+     * MONTH_STARTS：每个农历年按顺序的13个月（含闰月）的首日偏移，不足13个月的年份多出的一项等于下一年首日。
+     * 两个方向的转换都只需一次数组访问。
+     * </pre>
+     */
+    private static final class LunarTable {
+
+        /** 1900年正月初一距1970-01-01的天数 */
+        private static final int BASE_EPOCH_DAY = -25537;
+
+        private static final int[] DAYS;
+
+        private static final int[] MONTH_STARTS;
+
+        static {
+            int years = MAX_YEAR - MIN_YEAR + 1;
+            int totalDays = 0;
+            for (int year = MIN_YEAR; year <= MAX_YEAR; year++) {
+                totalDays += daysInLunarYear(year);
             }
-        }
-        dayOffset += monthDay;
-        leapMonth = (LUNAR_INFO[year - MIN_YEAR] & 0xf00000) >> 20;
-
-        // 这一年有闰月
-        if (leapMonth != 0) {
-            if (month > leapMonth || (month == leapMonth && isLeapMonth)) {
-                if ((LUNAR_INFO[year - MIN_YEAR] & (0x80000 >> (month - 1))) == 0) {
-                    dayOffset += 29;
-                } else {
-                    dayOffset += 30;
+
+            int[] days = new int[totalDays];
+            int[] monthStarts = new int[years * 13 + 1];
+            int offset = 0;
+            for (int year = MIN_YEAR; year <= MAX_YEAR; year++) {
+                int leapMonth = leapMonth(year);
+                int base = (year - MIN_YEAR) * 13;
+                // 按顺序遍历当年的月份，闰月排在同名月份之后
+                for (int index = 1; index <= 13; index++) {
+                    monthStarts[base + index - 1] = offset;
+                    if (index == 13 && leapMonth == 0) {
+                        break;
+                    }
+                    int month = leapMonth != 0 && index > leapMonth ? index - 1 : index;
+                    boolean leap = leapMonth != 0 && index == leapMonth + 1;
+                    int daysOfMonth = daysInLunarMonth(year, index);
+                    for (int day = 1; day <= daysOfMonth; day++) {
+                        days[offset++] = LunarDate.pack(year, month, leap, day);
+                    }
                 }
             }
-        }
+            monthStarts[years * 13] = offset;
 
-        if (dayOffset > 366 || (year % 4 != 0 && dayOffset > 365)) {
-            year += 1;
-            if (year % 4 == 1) {
-                dayOffset -= 366;
-            } else {
-                dayOffset -= 365;
-            }
+            DAYS = days;
+            MONTH_STARTS = monthStarts;
         }
 
-        int iYear, iMonth = 0, iMonthDay = 0;
-        for (i = 1; i < 13; i++) {
-            int iPos = DAYS_BEFORE_MONTH[i];
-            if (year % 4 == 0 && i > 2) {
-                iPos += 1;
+        /**
+         * 公历日期（距1970-01-01的天数）转换为农历
+         */
+        private static int epochDayToLunar(long epochDay) {
+            long offset = epochDay - BASE_EPOCH_DAY;
+            if (offset < 0 || offset >= DAYS.length) {
+                throw new IllegalArgumentException("Illegal solar date, out of the supported range");
             }
+            return DAYS[(int) offset];
+        }
 
-            if (year % 4 == 0 && i == 2 && iPos + 1 == dayOffset) {
-                iMonth = i;
-                iMonthDay = dayOffset - 31;
-                break;
-            }
-            if (iPos >= dayOffset) {
-                iMonth = i;
-                iPos = DAYS_BEFORE_MONTH[i - 1];
-                if (year % 4 == 0 && i > 2) {
-                    iPos += 1;
-                }
-                if (dayOffset > iPos) {
-                    iMonthDay = dayOffset - iPos;
-                } else if (dayOffset == iPos) {
-                    if (year % 4 == 0 && i == 2) {
-                        iMonthDay = DAYS_BEFORE_MONTH[i] - DAYS_BEFORE_MONTH[i - 1] + 1;
-                    } else {
-                        iMonthDay = DAYS_BEFORE_MONTH[i] - DAYS_BEFORE_MONTH[i - 1];
-                    }
-                } else {
-                    iMonthDay = dayOffset;
-                }
-                break;
+        /**
+         * 农历转换为公历日期（距1970-01-01的天数），日期超出当月天数时顺延到下个月
+         */
+        private static long lunarToEpochDay(int year, int month, boolean leap, int day) {
+            int leapMonth = leapMonth(year);
+            int index = month - 1;
+            if (leapMonth != 0 && (month > leapMonth || (month == leapMonth && leap))) {
+                index++;
             }
+            return BASE_EPOCH_DAY + MONTH_STARTS[(year - MIN_YEAR) * 13 + index] + day - 1L;
         }
-        iYear = year;
-        return iYear + "-" + iMonth + "-" + iMonthDay;
     }
 
     /**
-     * 将公历日期转换为农历日期，且标识是否是闰月
-     * @param dateStr 格式：yyyy-MM-dd
-     * @return 返回公历日期对应的农历日期
+     * 解析字符串中[from, to)区间内的非负整数
      */
-    public static final String solarToLunar(String dateStr) {
-        int year = Integer.parseInt(dateStr.split("-")[0]);
-        int month = Integer.parseInt(dateStr.split("-")[1]);
-        int monthDay = Integer.parseInt(dateStr.split("-")[2]);
-        Date baseDate = new GregorianCalendar(1900, 0, 31).getTime();
-        Date objDate = new GregorianCalendar(year, month - 1, monthDay).getTime();
-        int offset = (int) ((objDate.getTime() - baseDate.getTime()) / 86400000L);
-        // 用offset减去每农历年的天数计算当天是农历第几天
-        // iYear最终结果是农历的年份, offset是当年的第几天
-        int iYear, daysOfYear = 0;
-        for (iYear = MIN_YEAR; iYear <= MAX_YEAR && offset > 0; iYear++) {
-            daysOfYear = daysInLunarYear(iYear);
-            offset -= daysOfYear;
-        }
-        if (offset < 0) {
-            offset += daysOfYear;
-            iYear--;
+    private static int parseInt(String str, int from, int to) {
+        if (from < 0 || to <= from) {
+            throw new NumberFormatException("For input string: \"" + str + "\"");
         }
-        int leapMonth = leapMonth(iYear);
-        // 是否是闰月
-        // boolean isLeap = false;
-        // 用当年的天数offset,逐个减去每月（农历）的天数，求出当天是本月的第几天
-        int iMonth, daysOfMonth = 0;
-        for (iMonth = 1; iMonth <= 13 && offset > 0; iMonth++) {
-            daysOfMonth = daysInLunarMonth(iYear, iMonth);
-            offset -= daysOfMonth;
-        }
-        // 当前月超过闰月，要校正
-        if (leapMonth != 0 && iMonth > leapMonth) {
-            --iMonth;
-            // if (iMonth == leapMonth) {
-            // isLeap = true;
-            // }
-        }
-        // offset小于0时，也要校正
-        if (offset < 0) {
-            offset += daysOfMonth;
-            --iMonth;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = str.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("For input string: \"" + str + "\"");
+            }
+            value = value * 10 + digit;
         }
+        return value;
+    }
+
+    /**
+     * 公历日期转换为距1970-01-01的天数
+     */
+    private static long toEpochDay(int year, int month, int day) {
+        // 以3月为一年的开始，闰日落在年末
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
 
-        return iYear + "-" + iMonth + '-' + (offset + 1);
+    /**
+     * 距1970-01-01的天数转换为公历日期字符串，格式：yyyy-M-d
+     */
+    private static String formatEpochDay(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        long month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year + "-" + month + "-" + day;
     }
 
     /**
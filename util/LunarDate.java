@@ -0,0 +1,143 @@
+package com.mx.server.tsp.cockpit.plan.common;
+
+/**
+ * 农历日期，不可变
+ *
+ * <pre>
+ * 除对象形式外，还提供int压缩形式（year << 10 | month << 6 | leap << 5 | day），
+ * 可直接保存在int[]中或作为返回值，转换过程中不创建对象。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class LunarDate implements Comparable<LunarDate> {
+
+    private final int year;
+
+    private final int month;
+
+    private final int day;
+
+    private final boolean leap;
+
+    /**
+     * @param year 农历年
+     * @param month 农历月，1-12
+     * @param day 农历日，1-30
+     * @param leap 是否闰月
+     */
+    public LunarDate(int year, int month, int day, boolean leap) {
+        if (month < 1 || month > 12 || day < 1 || day > 30) {
+            throw new IllegalArgumentException("Illegal lunar date: " + year + "-" + month + "-" + day);
+        }
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.leap = leap;
+    }
+
+    /**
+     * 从压缩形式创建
+     * @param packed
+     * @return
+     */
+    public static LunarDate of(int packed) {
+        return new LunarDate(year(packed), month(packed), day(packed), isLeap(packed));
+    }
+
+    /**
+     * 压缩为int
+     * @param year 农历年
+     * @param month 农历月，1-12
+     * @param leap 是否闰月
+     * @param day 农历日，1-30
+     * @return
+     */
+    public static int pack(int year, int month, boolean leap, int day) {
+        return year << 10 | month << 6 | (leap ? 1 : 0) << 5 | day;
+    }
+
+    /**
+     * 压缩形式中的农历年
+     */
+    public static int year(int packed) {
+        return packed >>> 10;
+    }
+
+    /**
+     * 压缩形式中的农历月
+     */
+    public static int month(int packed) {
+        return (packed >>> 6) & 0xF;
+    }
+
+    /**
+     * 压缩形式中的农历日
+     */
+    public static int day(int packed) {
+        return packed & 0x1F;
+    }
+
+    /**
+     * 压缩形式中是否闰月
+     */
+    public static boolean isLeap(int packed) {
+        return (packed & 0x20) != 0;
+    }
+
+    /**
+     * 转换为压缩形式
+     * @return
+     */
+    public int toPacked() {
+        return pack(year, month, leap, day);
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonth() {
+        return month;
+    }
+
+    public int getDay() {
+        return day;
+    }
+
+    public boolean isLeap() {
+        return leap;
+    }
+
+    @Override
+    public int compareTo(LunarDate other) {
+        // 同月时闰月排在后面，与压缩形式的大小顺序一致
+        return Integer.compare(toPacked(), other.toPacked());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof LunarDate)) {
+            return false;
+        }
+        LunarDate other = (LunarDate) obj;
+        return year == other.year && month == other.month && day == other.day && leap == other.leap;
+    }
+
+    @Override
+    public int hashCode() {
+        return toPacked();
+    }
+
+    /**
+     * 格式：yyyy-M-d，闰月为yyyy-闰M-d
+     */
+    @Override
+    public String toString() {
+        return year + (leap ? "-闰" : "-") + month + "-" + day;
+    }
+}
@@ -3,6 +3,7 @@ package com.chen.my_project.util;
 import java.awt.geom.GeneralPath;
 import java.awt.geom.Point2D;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -26,12 +27,52 @@ public final class PointUtil {
      * @author ChenDuochuang
      */
     public static boolean isInCircle(double pointLon, double pointLat, double lon, double lat, String radius) {
+        return isInCircle(pointLon, pointLat, lon, lat, Double.parseDouble(radius));
+    }
+
+    /**
+     * 判断点是否在圆形内
+     * @param pointLon 要判断的纵坐标
+     * @param pointLat 要判断的横坐标
+     * @param lon 圆心纵坐标
+     * @param lat 圆心横坐标
+     * @param radius 圆半径
+     * @author ChenDuochuang
+     */
+    public static boolean isInCircle(double pointLon, double pointLat, double lon, double lat, double radius) {
 
         // 求两点之间的距离，比较两点间距离和圆半径
         double distance = Math.hypot((pointLon - lon), (pointLat - lat));
-        double r = Double.parseDouble(radius);
 
-        return distance < r;
+        return distance < radius;
+    }
+
+    /**
+     * 批量判断点是否在圆形内，第i个点在圆内时设置out的第i位，否则清除该位
+     * @param pointLons 要判断的纵坐标
+     * @param pointLats 要判断的横坐标
+     * @param lon 圆心纵坐标
+     * @param lat 圆心横坐标
+     * @param radius 圆半径
+     * @param out 判断结果，应按点数预先创建
+     * @return 在圆内的点数
+     * @author ChenDuochuang
+     */
+    public static int isInCircle(double[] pointLons, double[] pointLats, double lon, double lat, double radius,
+            BitSet out) {
+        int n = Geofence.checkBatch(pointLons, pointLats, out);
+        // 比较距离的平方，省去开方
+        double r2 = radius * radius;
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            double dx = pointLons[i] - lon;
+            double dy = pointLats[i] - lat;
+            if (dx * dx + dy * dy < r2) {
+                out.set(i);
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
@@ -45,13 +86,24 @@ public final class PointUtil {
      */
     public static boolean isInCircleByLonLat(double pointLon, double pointLat, double lon, double lat, String radius) {
 
+        return isInCircleByLonLat(pointLon, pointLat, lon, lat, Double.parseDouble(radius));
+    }
+
+    /**
+     * 根据经纬度判断点是否在圆形内
+     * @param pointLon 要判断的纵坐标
+     * @param pointLat 要判断的横坐标
+     * @param lon 圆心纵坐标
+     * @param lat 圆心横坐标
+     * @param radius 圆半径（m）
+     * @author ChenDuochuang
+     */
+    public static boolean isInCircleByLonLat(double pointLon, double pointLat, double lon, double lat, double radius) {
+
         // 求两点之间的距离，比较两点间距离和圆半径
-        double distance = Double.parseDouble(DistanceUtil.getDistance(pointLon, pointLat, lon, lat));
-        double r = Double.parseDouble(radius);
-        System.out.println("++distance:" + distance);
-        System.out.println("++radius:" + r);
+        double distance = DistanceUtil.distanceMeters(pointLon, pointLat, lon, lat);
 
-        return distance < r;
+        return distance < radius;
     }
 
     /**
@@ -70,6 +122,24 @@ public final class PointUtil {
         return pointLat > southWestLat && pointLat < northEastLat && pointLon > southWestLon && pointLon < northEastLon;
     }
 
+    /**
+     * 批量判断点是否在矩形内，第i个点在矩形内时设置out的第i位，否则清除该位
+     * @param pointLons 要判断的纵坐标
+     * @param pointLats 要判断的横坐标
+     * @param southWestLon 西南点纵坐标
+     * @param southWestLat 西南点横坐标
+     * @param northEastLon 东北点纵坐标
+     * @param northEastLat 东北点横坐标
+     * @param out 判断结果，应按点数预先创建
+     * @return 在矩形内的点数
+     * @author ChenDuochuang
+     */
+    public static int isInRectangle(double[] pointLons, double[] pointLats, double southWestLon, double southWestLat,
+            double northEastLon, double northEastLat, BitSet out) {
+        return new RectangleGeofence(southWestLon, southWestLat, northEastLon, northEastLat).containsAll(pointLons,
+                pointLats, out);
+    }
+
     /**
      * 判断点是否在多边形内
      * @param pointLon 要判断的纵坐标
@@ -94,6 +164,31 @@ public final class PointUtil {
         return checkPoint(point, points);
     }
 
+    /**
+     * 判断点是否在预编译的多边形内，同一围栏需要反复判断时应优先使用此方法
+     * @param pointLon 要判断的纵坐标
+     * @param pointLat 要判断的横坐标
+     * @param polygon 通过{@link CompiledPolygon#parse(String)}预先解析的多边形
+     * @return
+     * @author ChenDuochuang
+     */
+    public static boolean isInPolygon(double pointLon, double pointLat, CompiledPolygon polygon) {
+        return polygon.contains(pointLon, pointLat);
+    }
+
+    /**
+     * 批量判断点是否在预编译的多边形内，第i个点在多边形内时设置out的第i位，否则清除该位
+     * @param pointLons 要判断的纵坐标
+     * @param pointLats 要判断的横坐标
+     * @param polygon 通过{@link CompiledPolygon#parse(String)}预先解析的多边形
+     * @param out 判断结果，应按点数预先创建
+     * @return 在多边形内的点数
+     * @author ChenDuochuang
+     */
+    public static int isInPolygon(double[] pointLons, double[] pointLats, CompiledPolygon polygon, BitSet out) {
+        return polygon.containsAll(pointLons, pointLats, out);
+    }
+
     /**
      * 判断点是否在多边形内
      * @param point
@@ -108,9 +203,10 @@ public final class PointUtil {
         Point2D.Double firstPoint = points.get(0);
         // 通过移动到指定坐标，将一个点添加到路径中
         generalPath.moveTo(firstPoint.x, firstPoint.y);
-        points.remove(0);
 
-        for (Point2D.Double p : points) {
+        // 从第2个点开始连线，不修改调用方传入的列表
+        for (int i = 1; i < points.size(); i++) {
+            Point2D.Double p = points.get(i);
             // 绘制一条从当前坐标到指定坐标的直线
             generalPath.lineTo(p.x, p.y);
         }
@@ -0,0 +1,73 @@
+package com.chen.my_project.util;
+
+import java.util.BitSet;
+
+/**
+ * 矩形围栏，判断规则与{@link PointUtil#isInRectangle}一致（不含边界）
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class RectangleGeofence implements Geofence {
+
+    private final double southWestLon;
+    private final double southWestLat;
+    private final double northEastLon;
+    private final double northEastLat;
+
+    /**
+     * @param southWestLon 西南点纵坐标
+     * @param southWestLat 西南点横坐标
+     * @param northEastLon 东北点纵坐标
+     * @param northEastLat 东北点横坐标
+     * @author ChenDuochuang
+     */
+    public RectangleGeofence(double southWestLon, double southWestLat, double northEastLon, double northEastLat) {
+        this.southWestLon = southWestLon;
+        this.southWestLat = southWestLat;
+        this.northEastLon = northEastLon;
+        this.northEastLat = northEastLat;
+    }
+
+    @Override
+    public boolean contains(double pointLon, double pointLat) {
+        return pointLat > southWestLat && pointLat < northEastLat && pointLon > southWestLon
+                && pointLon < northEastLon;
+    }
+
+    @Override
+    public int containsAll(double[] lons, double[] lats, BitSet out) {
+        int n = Geofence.checkBatch(lons, lats, out);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            double pointLon = lons[i];
+            double pointLat = lats[i];
+            if (pointLat > southWestLat && pointLat < northEastLat && pointLon > southWestLon
+                    && pointLon < northEastLon) {
+                out.set(i);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public double getMinLon() {
+        return southWestLon;
+    }
+
+    @Override
+    public double getMinLat() {
+        return southWestLat;
+    }
+
+    @Override
+    public double getMaxLon() {
+        return northEastLon;
+    }
+
+    @Override
+    public double getMaxLat() {
+        return northEastLat;
+    }
+}
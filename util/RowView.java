@@ -0,0 +1,152 @@
+package com.chen.my_project.excel;
+
+import java.util.Arrays;
+
+/**
+ * 流式读取Excel时的一行数据，不可变
+ *
+ * <pre>
+ * 单元格的值为按单元格格式显示的字符串（与DataFormatter的结果一致），没有值的单元格为null。
+ * 数值单元格（含日期和结果为数值的公式）同时保留原始数值和是否为日期格式，
+ * 显示值经过格式化（如 4/5/19、12.00）时，应按原始数值转换类型，不要解析显示值。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class RowView {
+
+    private final int sheetIndex;
+
+    private final int rowNum;
+
+    private final String[] values;
+
+    /** 各列的原始数值，不是数值单元格时为NaN；整行都没有数值单元格时为null */
+    private final double[] numbers;
+
+    /** 各列是否为日期格式，整行都没有日期单元格时为null */
+    private final boolean[] dates;
+
+    /**
+     * @param sheetIndex sheet序号，从0开始
+     * @param rowNum 行号，从0开始
+     * @param values 各列的值，下标为列号
+     */
+    RowView(int sheetIndex, int rowNum, String[] values) {
+        this(sheetIndex, rowNum, values, null, null);
+    }
+
+    /**
+     * @param sheetIndex sheet序号，从0开始
+     * @param rowNum 行号，从0开始
+     * @param values 各列的值，下标为列号
+     * @param numbers 各列的原始数值，不是数值单元格时为NaN，可以为null
+     * @param dates 各列是否为日期格式，可以为null
+     */
+    RowView(int sheetIndex, int rowNum, String[] values, double[] numbers, boolean[] dates) {
+        this.sheetIndex = sheetIndex;
+        this.rowNum = rowNum;
+        this.values = values;
+        this.numbers = numbers;
+        this.dates = dates;
+    }
+
+    /**
+     * sheet序号，从0开始
+     * @return
+     */
+    public int getSheetIndex() {
+        return sheetIndex;
+    }
+
+    /**
+     * 行号，从0开始
+     * @return
+     */
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 最后一个有值的单元格的列号加1
+     * @return
+     */
+    public int getCellCount() {
+        return values.length;
+    }
+
+    /**
+     * 获取单元格的值
+     * @param column 列号，从0开始
+     * @return 没有值时为null
+     * @author ChenDuochuang
+     */
+    public String getString(int column) {
+        return column >= 0 && column < values.length ? values[column] : null;
+    }
+
+    /**
+     * 验证单元格是否为空
+     *
+     * <pre>
+     * true：没有值或为空字符串
+     * false：有值
+     * </pre>
+     * @param column 列号，从0开始
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean isBlank(int column) {
+        String value = getString(column);
+        return value == null || value.isEmpty();
+    }
+
+    /**
+     * 是否为数值单元格（含日期和结果为数值的公式）
+     * @param column 列号，从0开始
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean isNumber(int column) {
+        return numbers != null && column >= 0 && column < numbers.length && !Double.isNaN(numbers[column]);
+    }
+
+    /**
+     * 获取数值单元格的原始数值，日期为Excel的日期序列号
+     * @param column 列号，从0开始
+     * @return
+     * @throws IllegalStateException 不是数值单元格
+     * @author ChenDuochuang
+     */
+    public double getNumber(int column) {
+        if (!isNumber(column)) {
+            throw new IllegalStateException("Not a numeric cell at row " + (rowNum + 1) + " column " + (column + 1));
+        }
+        return numbers[column];
+    }
+
+    /**
+     * 是否为日期格式的数值单元格
+     * @param column 列号，从0开始
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean isDate(int column) {
+        return dates != null && column >= 0 && column < dates.length && dates[column];
+    }
+
+    /**
+     * 各列的值
+     * @return 副本
+     */
+    public String[] toArray() {
+        return values.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "RowView [sheetIndex=" + sheetIndex + ", rowNum=" + rowNum + ", values=" + Arrays.toString(values)
+                + "]";
+    }
+}
@@ -0,0 +1,73 @@
+package com.chen.my_project.excel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * 一个Workbook的样式注册表，相同的CellStyleSpec只创建一个CellStyle
+ *
+ * <pre>
+ * .xls最多只能有4000个样式，每次导出或每个单元格都createCellStyle很快就会超出限制。
+ * 创建时登记Workbook中已有的样式，之后获取的样式与已有样式相同时直接复用，
+ * 因此对同一个Workbook多次创建注册表也不会重复创建样式。
+ * 非线程安全，与Workbook一样只能在一个线程中使用。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class StyleRegistry {
+
+    /** .xls的前15个样式为样式记录（style XF），不能直接用于单元格 */
+    private static final int HSSF_FIRST_CELL_STYLE = 15;
+
+    private final Workbook workbook;
+
+    private final DataFormat dataFormat;
+
+    private final Map<CellStyleSpec, CellStyle> styles = new HashMap<>();
+
+    public StyleRegistry(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+        int first = workbook instanceof HSSFWorkbook ? HSSF_FIRST_CELL_STYLE : 0;
+        for (int i = first; i < workbook.getNumCellStyles(); i++) {
+            CellStyle style = workbook.getCellStyleAt(i);
+            styles.putIfAbsent(CellStyleSpec.of(style, workbook), style);
+        }
+    }
+
+    /**
+     * 获取描述对应的样式，不存在时创建
+     * @param spec
+     * @return
+     * @author ChenDuochuang
+     */
+    public CellStyle get(CellStyleSpec spec) {
+        CellStyle style = styles.get(spec);
+        if (style == null) {
+            style = workbook.createCellStyle();
+            spec.applyTo(style, spec.findOrCreateFont(workbook));
+            style.setDataFormat(dataFormat.getFormat(spec.getDataFormat()));
+            styles.put(spec, style);
+        }
+        return style;
+    }
+
+    public Workbook getWorkbook() {
+        return workbook;
+    }
+
+    /**
+     * 已登记的样式数量
+     * @return
+     */
+    public int size() {
+        return styles.size();
+    }
+}
@@ -0,0 +1,189 @@
+package com.chen.my_project.util;
+
+import java.text.ParseException;
+import java.util.BitSet;
+
+/**
+ * 预编译的生效时间段规则，不可变
+ *
+ * <pre>
+ * 规则由每天的开始、结束时间（HH:mm）和生效星期组成，编译时转换为当天的分钟数和星期掩码（星期一为第0位，星期日为第6位），
+ * 判断时只做整数比较，不再解析字符串。
+ * 开始、结束时间均包含在内；开始时间晚于结束时间时表示跨越零点的时间段，例如22:00-06:00，
+ * 此时星期指的是时间段开始的那一天，零点之后的部分按前一天的星期判断。
+ * </pre>
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class TimeWindowRule {
+
+    private static final int MINUTES_PER_DAY = 1440;
+
+    /** 当天的分钟数，0-1440 */
+    private final int startMinute;
+    private final int endMinute;
+
+    private final int weekdayMask;
+
+    /** 是否跨越零点 */
+    private final boolean overnight;
+
+    /**
+     * @param startMinute 开始时间，当天的分钟数，0-1440
+     * @param endMinute 结束时间，当天的分钟数，0-1440
+     * @param weekdayMask 星期掩码，星期一为第0位，星期日为第6位
+     * @author ChenDuochuang
+     */
+    public TimeWindowRule(int startMinute, int endMinute, int weekdayMask) {
+        if (startMinute < 0 || startMinute > MINUTES_PER_DAY || endMinute < 0 || endMinute > MINUTES_PER_DAY) {
+            throw new IllegalArgumentException("Illegal time window: " + startMinute + "-" + endMinute);
+        }
+        if ((weekdayMask & ~DateRange.ALL_WEEKDAYS) != 0) {
+            throw new IllegalArgumentException("Illegal weekday mask: " + Integer.toBinaryString(weekdayMask));
+        }
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.weekdayMask = weekdayMask;
+        this.overnight = startMinute > endMinute;
+    }
+
+    /**
+     * 编译规则
+     * @param startTime 开始时间，格式：HH:mm
+     * @param endTime 结束时间，格式：HH:mm
+     * @param effectiveWeek 生效星期，格式：1234567字符串格式，为null时每天生效
+     * @return
+     * @throws ParseException
+     * @author ChenDuochuang
+     */
+    public static TimeWindowRule compile(String startTime, String endTime, String effectiveWeek)
+            throws ParseException {
+        int startMinute = DateTimeCodec.parseMinuteOfDay(startTime);
+        int endMinute = DateTimeCodec.parseMinuteOfDay(endTime);
+        return new TimeWindowRule(startMinute, endMinute, parseWeekdays(effectiveWeek));
+    }
+
+    /**
+     * 解析星期字符串为星期掩码
+     * @param effectiveWeek 格式：1234567字符串格式，为null时表示每天
+     * @return
+     * @author ChenDuochuang
+     */
+    public static int parseWeekdays(String effectiveWeek) {
+        if (effectiveWeek == null) {
+            return DateRange.ALL_WEEKDAYS;
+        }
+        int mask = 0;
+        for (int i = 0; i < effectiveWeek.length(); i++) {
+            char c = effectiveWeek.charAt(i);
+            if (c < '1' || c > '7') {
+                throw new IllegalArgumentException("Illegal effective week: " + effectiveWeek);
+            }
+            mask |= 1 << (c - '1');
+        }
+        return mask;
+    }
+
+    /**
+     * 判断是否在生效时间内
+     * @param dayOfWeek 星期，1-7，星期日为7
+     * @param minuteOfDay 当天的分钟数
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean matches(int dayOfWeek, int minuteOfDay) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("Illegal day of week: " + dayOfWeek);
+        }
+        int dayBit = 1 << (dayOfWeek - 1);
+        int previousDayBit = dayOfWeek == 1 ? 1 << 6 : dayBit >>> 1;
+        return matches(dayBit, previousDayBit, minuteOfDay);
+    }
+
+    /**
+     * 判断某个时间是否在生效时间内，按系统默认时区
+     * @param epochMilli 毫秒级时间戳
+     * @return
+     * @author ChenDuochuang
+     */
+    public boolean matches(long epochMilli) {
+        long local = epochMilli + DateTimeCodec.offsetMillis(epochMilli);
+        long epochDay = Math.floorDiv(local, 86400000L);
+        int minuteOfDay = (int) (Math.floorMod(local, 86400000L) / 60000);
+        return matches(dayOfWeek(epochDay), minuteOfDay);
+    }
+
+    /**
+     * 批量判断同一时刻下各规则是否生效
+     * @param rules 规则
+     * @param dayOfWeek 星期，1-7，星期日为7
+     * @param minuteOfDay 当天的分钟数
+     * @param result 第i位表示rules[i]是否生效，调用前会被清空
+     * @return 生效的规则数
+     * @author ChenDuochuang
+     */
+    public static int matchAll(TimeWindowRule[] rules, int dayOfWeek, int minuteOfDay, BitSet result) {
+        if (dayOfWeek < 1 || dayOfWeek > 7) {
+            throw new IllegalArgumentException("Illegal day of week: " + dayOfWeek);
+        }
+        result.clear();
+        // 星期的位在循环外计算一次
+        int dayBit = 1 << (dayOfWeek - 1);
+        int previousDayBit = dayOfWeek == 1 ? 1 << 6 : dayBit >>> 1;
+        int count = 0;
+        for (int i = 0; i < rules.length; i++) {
+            if (rules[i].matches(dayBit, previousDayBit, minuteOfDay)) {
+                result.set(i);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean matches(int dayBit, int previousDayBit, int minuteOfDay) {
+        if (!overnight) {
+            return (weekdayMask & dayBit) != 0 && minuteOfDay >= startMinute && minuteOfDay <= endMinute;
+        }
+        return ((weekdayMask & dayBit) != 0 && minuteOfDay >= startMinute)
+                || ((weekdayMask & previousDayBit) != 0 && minuteOfDay <= endMinute);
+    }
+
+    /**
+     * 星期，1-7，星期日为7
+     * @param epochDay 距1970-01-01的天数
+     * @return
+     * @author ChenDuochuang
+     */
+    public static int dayOfWeek(long epochDay) {
+        // 1970-01-01为星期四
+        return (int) Math.floorMod(epochDay + 3, 7L) + 1;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public int getEndMinute() {
+        return endMinute;
+    }
+
+    public int getWeekdayMask() {
+        return weekdayMask;
+    }
+
+    /**
+     * 是否跨越零点
+     * @return
+     */
+    public boolean isOvernight() {
+        return overnight;
+    }
+
+    @Override
+    public String toString() {
+        return "TimeWindowRule [" + startMinute / 60 + ":" + startMinute % 60 / 10 + startMinute % 10 + "-"
+                + endMinute / 60 + ":" + endMinute % 60 / 10 + endMinute % 10 + ", weekdayMask="
+                + Integer.toBinaryString(weekdayMask) + "]";
+    }
+}
@@ -0,0 +1,336 @@
+package com.chen.my_project.util;
+
+import java.util.Arrays;
+
+/**
+ * GPS轨迹工具类，基于基本类型坐标数组计算里程和抽稀轨迹
+ *
+ * @author ChenDuochuang
+ * @date 2026年10月18日
+ */
+public final class TrackUtil {
+
+    private TrackUtil() {
+    }
+
+    /**
+     * 计算轨迹总长度（单位米）
+     * @param lons 经度
+     * @param lats 纬度
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double pathLength(double[] lons, double[] lats) {
+        return cumulativeLength(lons, lats, null);
+    }
+
+    /**
+     * 计算轨迹累计长度（单位米），一次遍历完成
+     * @param lons 经度
+     * @param lats 纬度
+     * @param out 不为null时，out[i]为起点到第i个点的累计长度
+     * @return 轨迹总长度
+     * @author ChenDuochuang
+     */
+    public static double cumulativeLength(double[] lons, double[] lats, double[] out) {
+        int n = checkTrack(lons, lats);
+        if (out != null && out.length < n) {
+            throw new IllegalArgumentException("out is shorter than the track");
+        }
+        if (n == 0) {
+            return 0;
+        }
+
+        double total = 0;
+        if (out != null) {
+            out[0] = 0;
+        }
+        // 相邻两段共用一个点，缓存上一个点的弧度和余弦
+        double prevLat = Math.toRadians(lats[0]);
+        double prevLon = Math.toRadians(lons[0]);
+        double prevCos = Math.cos(prevLat);
+        for (int i = 1; i < n; i++) {
+            double lat = Math.toRadians(lats[i]);
+            double lon = Math.toRadians(lons[i]);
+            double cos = Math.cos(lat);
+            double sinLat = Math.sin((lat - prevLat) / 2);
+            double sinLon = Math.sin((lon - prevLon) / 2);
+            double h = sinLat * sinLat + prevCos * cos * sinLon * sinLon;
+            total += 2 * Math.asin(Math.sqrt(Math.min(1, h))) * DistanceUtil.EARTH_RADIUS_M;
+            if (out != null) {
+                out[i] = total;
+            }
+            prevLat = lat;
+            prevLon = lon;
+            prevCos = cos;
+        }
+        return total;
+    }
+
+    /**
+     * 使用Douglas-Peucker算法抽稀轨迹
+     * @param lons 经度
+     * @param lats 纬度
+     * @param tolerance 允许的最大偏差（米）
+     * @return 保留的点的下标，升序，总是包含起点和终点
+     * @author ChenDuochuang
+     */
+    public static int[] simplifyDouglasPeucker(double[] lons, double[] lats, double tolerance) {
+        int n = checkTrack(lons, lats);
+        if (n <= 2) {
+            return identity(n);
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double tolerance2 = tolerance * tolerance;
+
+        // 用数组模拟栈，避免递归过深
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            if (last - first < 2) {
+                continue;
+            }
+
+            // 以线段中点纬度做局部等距投影，坐标以first为原点（单位米）
+            double scaleX = Math.toRadians(1) * DistanceUtil.EARTH_RADIUS_M
+                    * Math.cos(Math.toRadians((lats[first] + lats[last]) / 2));
+            double scaleY = Math.toRadians(1) * DistanceUtil.EARTH_RADIUS_M;
+            double bx = (lons[last] - lons[first]) * scaleX;
+            double by = (lats[last] - lats[first]) * scaleY;
+            double length2 = bx * bx + by * by;
+
+            double maxDistance2 = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = (lons[i] - lons[first]) * scaleX;
+                double py = (lats[i] - lats[first]) * scaleY;
+                double distance2 = segmentDistance2(px, py, bx, by, length2);
+                if (distance2 > maxDistance2) {
+                    maxDistance2 = distance2;
+                    index = i;
+                }
+            }
+
+            if (maxDistance2 > tolerance2) {
+                keep[index] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length << 1);
+                }
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+
+        return toIndices(keep);
+    }
+
+    /**
+     * 使用Visvalingam-Whyatt算法抽稀轨迹
+     *
+     * <pre>
+     * 反复移除与相邻两点构成三角形面积最小的点，直到最小面积不小于tolerance²。
+     * 与Douglas-Peucker相比更能保留轨迹的整体形状，适合用于轨迹展示。
+     * </pre>
+     * @param lons 经度
+     * @param lats 纬度
+     * @param tolerance 容差（米）
+     * @return 保留的点的下标，升序，总是包含起点和终点
+     * @author ChenDuochuang
+     */
+    public static int[] simplifyVisvalingam(double[] lons, double[] lats, double tolerance) {
+        int n = checkTrack(lons, lats);
+        if (n <= 2) {
+            return identity(n);
+        }
+
+        double threshold = tolerance * tolerance;
+        int[] prev = new int[n];
+        int[] next = new int[n];
+        double[] areas = new double[n];
+        for (int i = 0; i < n; i++) {
+            prev[i] = i - 1;
+            next[i] = i + 1;
+        }
+
+        // 按面积排序的最小堆，保存内部点的下标；position记录点在堆中的位置
+        int size = n - 2;
+        int[] heap = new int[size];
+        int[] position = new int[n];
+        for (int i = 1; i < n - 1; i++) {
+            areas[i] = triangleArea(lons, lats, i - 1, i, i + 1);
+            heap[i - 1] = i;
+            position[i] = i - 1;
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(heap, position, areas, i, size);
+        }
+
+        boolean[] keep = new boolean[n];
+        Arrays.fill(keep, true);
+        double maxRemoved = 0;
+        while (size > 0 && areas[heap[0]] < threshold) {
+            int point = heap[0];
+            // 移出堆顶
+            heap[0] = heap[--size];
+            position[heap[0]] = 0;
+            siftDown(heap, position, areas, 0, size);
+
+            keep[point] = false;
+            // 保证面积单调不减，避免移除一个点后相邻点的面积反而变小
+            maxRemoved = Math.max(maxRemoved, areas[point]);
+            int before = prev[point];
+            int after = next[point];
+            next[before] = after;
+            prev[after] = before;
+
+            if (before > 0) {
+                updateArea(heap, position, areas, size, before,
+                        Math.max(maxRemoved, triangleArea(lons, lats, prev[before], before, after)));
+            }
+            if (after < n - 1) {
+                updateArea(heap, position, areas, size, after,
+                        Math.max(maxRemoved, triangleArea(lons, lats, before, after, next[after])));
+            }
+        }
+
+        return toIndices(keep);
+    }
+
+    /**
+     * 按下标选取坐标
+     * @param values 原坐标
+     * @param indices 下标，通常为抽稀结果
+     * @return
+     * @author ChenDuochuang
+     */
+    public static double[] select(double[] values, int[] indices) {
+        double[] result = new double[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = values[indices[i]];
+        }
+        return result;
+    }
+
+    /**
+     * 点(px, py)到原点与(bx, by)构成线段的距离的平方
+     */
+    private static double segmentDistance2(double px, double py, double bx, double by, double length2) {
+        if (length2 == 0) {
+            return px * px + py * py;
+        }
+        double t = (px * bx + py * by) / length2;
+        if (t <= 0) {
+            return px * px + py * py;
+        }
+        if (t >= 1) {
+            double dx = px - bx;
+            double dy = py - by;
+            return dx * dx + dy * dy;
+        }
+        double cross = px * by - py * bx;
+        return cross * cross / length2;
+    }
+
+    /**
+     * 三个点构成三角形的面积（平方米），以中间点纬度做局部等距投影
+     */
+    private static double triangleArea(double[] lons, double[] lats, int a, int b, int c) {
+        double scaleY = Math.toRadians(1) * DistanceUtil.EARTH_RADIUS_M;
+        double scaleX = scaleY * Math.cos(Math.toRadians(lats[b]));
+        double ax = (lons[a] - lons[b]) * scaleX;
+        double ay = (lats[a] - lats[b]) * scaleY;
+        double cx = (lons[c] - lons[b]) * scaleX;
+        double cy = (lats[c] - lats[b]) * scaleY;
+        return Math.abs(ax * cy - ay * cx) / 2;
+    }
+
+    private static void updateArea(int[] heap, int[] position, double[] areas, int size, int point, double area) {
+        double old = areas[point];
+        areas[point] = area;
+        if (area < old) {
+            siftUp(heap, position, areas, position[point]);
+        } else {
+            siftDown(heap, position, areas, position[point], size);
+        }
+    }
+
+    private static void siftUp(int[] heap, int[] position, double[] areas, int i) {
+        int point = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (areas[heap[parent]] <= areas[point]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = point;
+        position[point] = i;
+    }
+
+    private static void siftDown(int[] heap, int[] position, double[] areas, int i, int size) {
+        if (i >= size) {
+            return;
+        }
+        int point = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && areas[heap[child + 1]] < areas[heap[child]]) {
+                child++;
+            }
+            if (areas[heap[child]] >= areas[point]) {
+                break;
+            }
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = point;
+        position[point] = i;
+    }
+
+    private static int[] toIndices(boolean[] keep) {
+        int count = 0;
+        for (boolean k : keep) {
+            if (k) {
+                count++;
+            }
+        }
+        int[] indices = new int[count];
+        int j = 0;
+        for (int i = 0; i < keep.length; i++) {
+            if (keep[i]) {
+                indices[j++] = i;
+            }
+        }
+        return indices;
+    }
+
+    private static int[] identity(int n) {
+        int[] indices = new int[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        return indices;
+    }
+
+    private static int checkTrack(double[] lons, double[] lats) {
+        if (lons.length != lats.length) {
+            throw new IllegalArgumentException("lons and lats must have the same length");
+        }
+        return lons.length;
+    }
+}